@@ -0,0 +1,102 @@
+package fr.poulpogaz.nonogramssolver.benchmark;
+
+import fr.poulpogaz.nonogramssolver.linesolver.BitwiseLineSolver;
+import fr.poulpogaz.nonogramssolver.linesolver.CompleteLineSolver;
+import fr.poulpogaz.nonogramssolver.linesolver.DefaultLineSolver;
+import fr.poulpogaz.nonogramssolver.linesolver.DynamicLineSolver;
+import fr.poulpogaz.nonogramssolver.linesolver.LineSolver;
+import fr.poulpogaz.nonogramssolver.solver.Description;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves generated lines with a line solver. Each operation restores a line then solves it,
+ * restoring costs about a nanosecond per cell.
+ * Lines are generated with a fixed seed, so all solvers solve the same lines.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class AbstractLineSolverBenchmark {
+
+    /**
+     * Number of different lines solved one after the other,
+     * to not always give the same input to the branch predictor
+     */
+    private static final int LINES = 64;
+
+    @Param({"20", "50"})
+    private int length;
+
+    @Param({"3", "8"})
+    private int clues;
+
+    @Param({"0.5", "0.8"})
+    private double fill;
+
+    @Param({"0", "0.25"})
+    private double known;
+
+    private LineGenerator.GeneratedLine[] lines;
+    private LineSolver lineSolver;
+    private int next;
+
+    @Setup
+    public void setup() {
+        LineGenerator generator = new LineGenerator(42);
+
+        lines = new LineGenerator.GeneratedLine[LINES];
+        for (int i = 0; i < LINES; i++) {
+            lines[i] = generator.generate(length, clues, fill, colors(), known);
+        }
+
+        lineSolver = solver().create();
+        next = 0;
+    }
+
+    @Benchmark
+    public Description solve() {
+        LineGenerator.GeneratedLine line = lines[next];
+        next = (next + 1) % LINES;
+
+        line.reset();
+        lineSolver.trySolve(line.getDescription());
+
+        return line.getDescription();
+    }
+
+    protected abstract int colors();
+
+    protected abstract Solver solver();
+
+    public enum Solver {
+        DEFAULT,
+        BITWISE,
+        DYNAMIC,
+        COMPLETE;
+
+        @SuppressWarnings("deprecation")
+        public LineSolver create() {
+            return switch (this) {
+                case DEFAULT -> new DefaultLineSolver();
+                case BITWISE -> new BitwiseLineSolver();
+                case DYNAMIC -> new DynamicLineSolver();
+                case COMPLETE -> new CompleteLineSolver();
+            };
+        }
+    }
+}
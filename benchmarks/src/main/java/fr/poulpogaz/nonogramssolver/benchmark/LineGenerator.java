@@ -0,0 +1,153 @@
+package fr.poulpogaz.nonogramssolver.benchmark;
+
+import fr.poulpogaz.nonogramssolver.Cell;
+import fr.poulpogaz.nonogramssolver.Grid;
+import fr.poulpogaz.nonogramssolver.Nonogram;
+import fr.poulpogaz.nonogramssolver.solver.CellWrapper;
+import fr.poulpogaz.nonogramssolver.solver.Description;
+
+import java.awt.*;
+import java.util.Random;
+
+/**
+ * Generates random lines which have at least one solution.
+ * A solution is drawn first: clues of random lengths and colors separated by gaps of random lengths.
+ * Then, some cells of the solution are revealed.
+ */
+public class LineGenerator {
+
+    private static final Color[] PALETTE = {
+            Color.BLACK, Color.RED, Color.BLUE, Color.GREEN, Color.ORANGE, Color.MAGENTA, Color.CYAN, Color.PINK
+    };
+
+    private final Random random;
+
+    public LineGenerator(long seed) {
+        random = new Random(seed);
+    }
+
+    /**
+     * @param length number of cells
+     * @param nClues number of clues, reduced if they don't fit in the line
+     * @param fillRatio fraction of filled cells in the solution
+     * @param nColors number of colors, at most 8
+     * @param knownRatio fraction of cells of the solution given to the line solver
+     */
+    public GeneratedLine generate(int length, int nClues, double fillRatio, int nColors, double knownRatio) {
+        if (length <= 0) {
+            throw new IllegalArgumentException("Length must be positive");
+        }
+        if (nColors <= 0 || nColors > PALETTE.length) {
+            throw new IllegalArgumentException("Number of colors must be between 1 and " + PALETTE.length);
+        }
+
+        nClues = Math.max(1, Math.min(nClues, (length + 1) / 2));
+
+        int[] colors = new int[nClues];
+        int gaps = 0;
+        for (int i = 0; i < nClues; i++) {
+            colors[i] = random.nextInt(nColors);
+
+            if (i > 0 && colors[i] == colors[i - 1]) {
+                gaps++;
+            }
+        }
+
+        int filled = (int) Math.round(fillRatio * length);
+        filled = Math.max(nClues, Math.min(filled, length - gaps));
+
+        int[] lengths = split(filled, nClues, 1);
+        int[] spaces = split(length - filled - gaps, nClues + 1, 0);
+
+        Nonogram.Builder builder = new Nonogram.Builder();
+        builder.setWidth(length);
+        builder.setHeight(1);
+        builder.setNumberOfClue(0, true, nClues);
+        for (int i = 0; i < nClues; i++) {
+            builder.addClue(0, true, lengths[i], PALETTE[colors[i]]);
+        }
+        for (int i = 0; i < length; i++) {
+            builder.setNumberOfClue(i, false, 0);
+        }
+
+        Nonogram nonogram = builder.build();
+        Nonogram.Clue[] clues = nonogram.getRows()[0];
+
+        // draw the solution and reveal some cells
+        int x = 0;
+        for (int i = 0; i <= nClues; i++) {
+            int space = spaces[i];
+            if (i > 0 && i < nClues && colors[i] == colors[i - 1]) {
+                space++;
+            }
+
+            for (int j = 0; j < space; j++, x++) {
+                reveal(nonogram, x, Cell.CROSSED, 0, knownRatio);
+            }
+
+            if (i < nClues) {
+                for (int j = 0; j < clues[i].length(); j++, x++) {
+                    reveal(nonogram, x, Cell.FILLED, clues[i].color(), knownRatio);
+                }
+            }
+        }
+
+        CellWrapper[] cells = new CellWrapper[length];
+        for (int i = 0; i < length; i++) {
+            cells[i] = new CellWrapper(nonogram, i, 0);
+        }
+
+        return new GeneratedLine(nonogram.getGrid(), new Description(true, 0, clues, cells));
+    }
+
+    private void reveal(Nonogram nonogram, int x, int type, int color, double knownRatio) {
+        if (random.nextDouble() < knownRatio) {
+            nonogram.set(x, 0, type, color);
+        }
+    }
+
+    /**
+     * Splits total in n random parts greater or equal to min
+     */
+    private int[] split(int total, int n, int min) {
+        int[] parts = new int[n];
+        int remaining = total - n * min;
+
+        for (int i = 0; i < n; i++) {
+            parts[i] = min;
+        }
+        for (int i = 0; i < remaining; i++) {
+            parts[random.nextInt(n)]++;
+        }
+
+        return parts;
+    }
+
+    /**
+     * A line and the state of its cells before solving it
+     */
+    public static class GeneratedLine {
+
+        private final Grid grid;
+        private final int[] initial;
+        private final Description description;
+
+        private GeneratedLine(Grid grid, Description description) {
+            this.grid = grid;
+            this.initial = grid.copy();
+            this.description = description;
+        }
+
+        /**
+         * Restores the cells and marks the line as changed, so the line solver doesn't skip it
+         */
+        public void reset() {
+            grid.restore(initial);
+            description.setChanged();
+        }
+
+        public Description getDescription() {
+            return description;
+        }
+    }
+}
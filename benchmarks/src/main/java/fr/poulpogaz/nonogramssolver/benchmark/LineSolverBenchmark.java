@@ -0,0 +1,22 @@
+package fr.poulpogaz.nonogramssolver.benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Line solvers on monochrome lines
+ */
+public class LineSolverBenchmark extends AbstractLineSolverBenchmark {
+
+    @Param({"DEFAULT", "BITWISE", "DYNAMIC", "COMPLETE"})
+    private Solver solver;
+
+    @Override
+    protected int colors() {
+        return 1;
+    }
+
+    @Override
+    protected Solver solver() {
+        return solver;
+    }
+}
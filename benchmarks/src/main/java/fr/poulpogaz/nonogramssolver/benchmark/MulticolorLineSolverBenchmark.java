@@ -0,0 +1,28 @@
+package fr.poulpogaz.nonogramssolver.benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Line solvers supporting colors on multicolor lines.
+ * {@link fr.poulpogaz.nonogramssolver.linesolver.BitwiseLineSolver} gives these lines
+ * to its fallback and {@link fr.poulpogaz.nonogramssolver.linesolver.CompleteLineSolver}
+ * ignores colors, so they are excluded.
+ */
+public class MulticolorLineSolverBenchmark extends AbstractLineSolverBenchmark {
+
+    @Param({"DEFAULT", "DYNAMIC"})
+    private Solver solver;
+
+    @Param({"2", "4"})
+    private int colors;
+
+    @Override
+    protected int colors() {
+        return colors;
+    }
+
+    @Override
+    protected Solver solver() {
+        return solver;
+    }
+}
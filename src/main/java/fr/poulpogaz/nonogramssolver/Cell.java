@@ -1,7 +1,8 @@
 package fr.poulpogaz.nonogramssolver;
 
 /**
- * A cell can be empty, filled for a particular color or crossed
+ * A cell can be empty, filled for a particular color or crossed.
+ * Cells returned by {@link Nonogram} are copies of the {@link Grid}: modifying them doesn't modify the nonogram.
  */
 public class Cell {
 
@@ -19,6 +20,10 @@ public class Cell {
         type = EMPTY;
     }
 
+    public Cell(int type, int color) {
+        set(type, color);
+    }
+
     public Cell(Cell cell) {
         set(cell);
     }
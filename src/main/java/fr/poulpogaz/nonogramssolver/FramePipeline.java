@@ -0,0 +1,323 @@
+package fr.poulpogaz.nonogramssolver;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Renders and writes frames in the background so that the solver doesn't wait for the encoder.
+ * {@link #submit(Nonogram)} only copies the grid into a bounded queue. A render thread
+ * draws each copy and hands the image to a writer thread, which keeps the order of the frames.
+ * <br>
+ * When regions are enabled, only the cells which changed since the previous frame
+ * are rendered and frames without any change are skipped.
+ * <br>
+ * When the queue is full, {@link Policy#BLOCK} waits for a free slot while {@link Policy#DROP}
+ * discards the oldest frame waiting to be rendered, so the last submitted frame is never lost.
+ */
+public class FramePipeline implements Closeable {
+
+    private static final Logger LOGGER = LogManager.getLogger(FramePipeline.class);
+
+    private static final int[] END_OF_FRAMES = new int[0];
+    private static final RenderedFrame END_OF_IMAGES = new RenderedFrame(null, 0, 0);
+
+    /**
+     * Number of rendered images waiting to be written. Rendering is cheap compared
+     * to encoding, so there is no need to render far ahead of the writer.
+     */
+    private static final int IMAGE_QUEUE_CAPACITY = 2;
+
+    public enum Policy {
+        BLOCK,
+        DROP
+    }
+
+    @FunctionalInterface
+    public interface FrameWriter {
+
+        /**
+         * @param x position of the image in the full frame. Always 0 when regions are disabled
+         * @param y position of the image in the full frame. Always 0 when regions are disabled
+         */
+        void write(BufferedImage image, int x, int y) throws IOException;
+    }
+
+    /**
+     * Draws the grid of a nonogram. Clues and colors are the ones of the template
+     * given to the pipeline.
+     */
+    public interface FrameRenderer {
+
+        BufferedImage render(Nonogram n);
+
+        /**
+         * @param cells the cells which changed, in cell coordinates
+         * @return an image of the region given by {@link #regionOf(Nonogram, Rectangle)}
+         */
+        BufferedImage render(Nonogram n, Rectangle cells);
+
+        /**
+         * @return the region in pixels of the full image drawn when the cells changed
+         */
+        Rectangle regionOf(Nonogram n, Rectangle cells);
+
+        static FrameRenderer of(NonogramRenderer renderer, int squareSize) {
+            return new FrameRenderer() {
+                @Override
+                public BufferedImage render(Nonogram n) {
+                    return renderer.asImage(n, squareSize);
+                }
+
+                @Override
+                public BufferedImage render(Nonogram n, Rectangle cells) {
+                    return renderer.asImage(n, squareSize, cells);
+                }
+
+                @Override
+                public Rectangle regionOf(Nonogram n, Rectangle cells) {
+                    return renderer.regionOf(n, squareSize, cells);
+                }
+            };
+        }
+    }
+
+    private record RenderedFrame(BufferedImage image, int x, int y) {}
+
+    private final Nonogram canvas;
+    private final FrameRenderer renderer;
+    private final FrameWriter writer;
+    private final Policy policy;
+    private final boolean regions;
+
+    private final BlockingQueue<int[]> frames;
+    private final BlockingQueue<RenderedFrame> images = new ArrayBlockingQueue<>(IMAGE_QUEUE_CAPACITY);
+
+    private final Thread renderThread;
+    private final Thread writerThread;
+
+    private long submitted;
+    private long dropped;
+    private volatile Exception failure;
+    private boolean closed;
+
+    private boolean firstFrame = true; // accessed only by the render thread
+
+    /**
+     * @param template nonogram whose clues and colors are drawn on each frame
+     * @param capacity maximal number of frames waiting to be rendered
+     * @param regions render only the part of the frame which changed. The first frame is always full
+     */
+    public FramePipeline(Nonogram template, FrameRenderer renderer, FrameWriter writer,
+                         int capacity, Policy policy, boolean regions) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+
+        this.canvas = new Nonogram(template);
+        this.renderer = renderer;
+        this.writer = writer;
+        this.policy = policy;
+        this.regions = regions;
+        this.frames = new ArrayBlockingQueue<>(capacity);
+
+        renderThread = new Thread(this::render, "frame-renderer");
+        writerThread = new Thread(this::write, "frame-writer");
+        renderThread.setDaemon(true);
+        writerThread.setDaemon(true);
+        renderThread.start();
+        writerThread.start();
+    }
+
+    /**
+     * Queues the current state of the grid of the nonogram.
+     * The nonogram must have the same clues as the template.
+     */
+    public void submit(Nonogram nonogram) {
+        if (closed) {
+            throw new IllegalStateException("Pipeline closed");
+        }
+
+        int[] frame = nonogram.getGrid().copy();
+        submitted++;
+
+        if (policy == Policy.BLOCK) {
+            put(frames, frame);
+        } else {
+            while (!frames.offer(frame)) {
+                if (frames.poll() != null) {
+                    dropped++;
+                }
+            }
+        }
+    }
+
+    private void render() {
+        try {
+            while (true) {
+                int[] frame = frames.take();
+                if (frame == END_OF_FRAMES) {
+                    break;
+                }
+
+                if (failure == null) {
+                    render(frame);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            fail(e);
+            drain(frames, END_OF_FRAMES);
+        } finally {
+            put(images, END_OF_IMAGES);
+        }
+    }
+
+    private void render(int[] frame) throws InterruptedException {
+        Grid grid = canvas.getGrid();
+
+        if (!regions || firstFrame) {
+            firstFrame = false;
+            grid.restore(frame);
+            images.put(new RenderedFrame(renderer.render(canvas), 0, 0));
+            return;
+        }
+
+        Rectangle cells = changedCells(grid, frame);
+        if (cells != null) {
+            grid.restore(frame);
+
+            Rectangle region = renderer.regionOf(canvas, cells);
+            images.put(new RenderedFrame(renderer.render(canvas, cells), region.x, region.y));
+        }
+    }
+
+    /**
+     * @return the bounding box of the cells of the grid which are different in the frame,
+     * or null if there is none
+     */
+    static Rectangle changedCells(Grid grid, int[] frame) {
+        int width = grid.getWidth();
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = -1;
+        int maxY = -1;
+
+        for (int i = 0; i < frame.length; i++) {
+            int x = i % width;
+            int y = i / width;
+
+            if (grid.get(x, y) != frame[i]) {
+                minX = Math.min(minX, x);
+                minY = Math.min(minY, y);
+                maxX = Math.max(maxX, x);
+                maxY = Math.max(maxY, y);
+            }
+        }
+
+        if (maxX < 0) {
+            return null;
+        }
+        return new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+    }
+
+    private void write() {
+        try {
+            while (true) {
+                RenderedFrame frame = images.take();
+                if (frame == END_OF_IMAGES) {
+                    break;
+                }
+
+                // after a failure, images are still taken so that the render thread never blocks
+                if (failure == null) {
+                    try {
+                        writer.write(frame.image(), frame.x(), frame.y());
+                    } catch (IOException | RuntimeException e) {
+                        fail(e);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void fail(Exception e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    private <T> void drain(BlockingQueue<T> queue, T end) {
+        try {
+            while (queue.take() != end) {
+                // discard
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> void put(BlockingQueue<T> queue, T element) {
+        try {
+            queue.put(element);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return number of frames passed to {@link #submit(Nonogram)}
+     */
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    /**
+     * @return number of frames discarded because the queue was full
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Waits until all queued frames are written.
+     * @throws IOException if the writer failed to write a frame
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        put(frames, END_OF_FRAMES);
+        try {
+            renderThread.join();
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+
+        if (dropped > 0) {
+            LOGGER.info("{} frames dropped out of {}", dropped, submitted);
+        }
+
+        Exception failure = this.failure;
+        if (failure instanceof IOException e) {
+            throw e;
+        } else if (failure != null) {
+            throw new IOException(failure);
+        }
+    }
+}
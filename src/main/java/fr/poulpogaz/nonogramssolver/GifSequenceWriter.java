@@ -26,6 +26,10 @@ public class GifSequenceWriter {
     protected ImageWriter gifWriter;
     protected ImageWriteParam imageWriteParam;
     protected IIOMetadata imageMetaData;
+    protected String metaFormatName;
+
+    private int imageLeft;
+    private int imageTop;
 
     /**
      * Creates a new GifSequenceWriter
@@ -53,7 +57,7 @@ public class GifSequenceWriter {
                 gifWriter.getDefaultImageMetadata(imageTypeSpecifier,
                                                   imageWriteParam);
 
-        String metaFormatName = imageMetaData.getNativeMetadataFormatName();
+        metaFormatName = imageMetaData.getNativeMetadataFormatName();
 
         IIOMetadataNode root = (IIOMetadataNode)
                 imageMetaData.getAsTree(metaFormatName);
@@ -62,7 +66,8 @@ public class GifSequenceWriter {
                 root,
                 "GraphicControlExtension");
 
-        graphicsControlExtensionNode.setAttribute("disposalMethod", "none");
+        // frames may cover only a part of the previous one, which must stay visible
+        graphicsControlExtensionNode.setAttribute("disposalMethod", "doNotDispose");
         graphicsControlExtensionNode.setAttribute("userInputFlag", "FALSE");
         graphicsControlExtensionNode.setAttribute(
                 "transparentColorFlag",
@@ -100,6 +105,28 @@ public class GifSequenceWriter {
     }
 
     public void writeToSequence(RenderedImage img) throws IOException {
+        writeToSequence(img, 0, 0);
+    }
+
+    /**
+     * Writes a frame covering only a part of the gif. The first frame defines
+     * the size of the gif and must be a full frame.
+     *
+     * @param x position of the left side of the frame in the gif
+     * @param y position of the top side of the frame in the gif
+     */
+    public void writeToSequence(RenderedImage img, int x, int y) throws IOException {
+        if (x != imageLeft || y != imageTop) {
+            IIOMetadataNode root = (IIOMetadataNode) imageMetaData.getAsTree(metaFormatName);
+            IIOMetadataNode imageDescriptorNode = getNode(root, "ImageDescriptor");
+            imageDescriptorNode.setAttribute("imageLeftPosition", Integer.toString(x));
+            imageDescriptorNode.setAttribute("imageTopPosition", Integer.toString(y));
+            imageMetaData.setFromTree(metaFormatName, root);
+
+            imageLeft = x;
+            imageTop = y;
+        }
+
         gifWriter.writeToSequence(
                 new IIOImage(
                         img,
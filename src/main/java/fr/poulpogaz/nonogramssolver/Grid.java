@@ -0,0 +1,320 @@
+package fr.poulpogaz.nonogramssolver;
+
+import java.util.Arrays;
+
+/**
+ * The state of all cells of a nonogram, packed in int arrays.
+ * A cell is encoded in an int: the two lowest bits are for the type, others for the color.
+ * The color of a cell that isn't filled is always 0.
+ * <br>
+ * The grid is stored twice: in row-major order and in column-major order,
+ * so a row and a column can both be read from contiguous memory.
+ * <br>
+ * The number of filled cells and of solved (not empty) cells of each row and each column is also maintained.
+ * <br>
+ * When the trail is enabled, every modification is recorded so that it can be undone
+ * in a time proportional to the number of modifications, see {@link #mark()} and {@link #undo(int)}.
+ */
+public class Grid {
+
+    private final int width;
+    private final int height;
+
+    private final int[] rows;
+    private final int[] columns;
+
+    private final int[] filledInRow;
+    private final int[] filledInColumn;
+    private final int[] solvedInRow;
+    private final int[] solvedInColumn;
+
+    /**
+     * Number of rows and columns with at least one empty cell
+     */
+    private int unsolvedLines;
+
+    /**
+     * Pairs of (index in row-major order, old value)
+     */
+    private int[] trail = new int[0];
+    private int trailSize;
+    private boolean trailEnabled;
+
+    public Grid(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid size: " + width + "x" + height);
+        }
+
+        this.width = width;
+        this.height = height;
+        this.rows = new int[width * height];
+        this.columns = new int[width * height];
+        this.filledInRow = new int[height];
+        this.filledInColumn = new int[width];
+        this.solvedInRow = new int[height];
+        this.solvedInColumn = new int[width];
+        this.unsolvedLines = width + height;
+    }
+
+    public int get(int x, int y) {
+        return rows[y * width + x];
+    }
+
+    public int getType(int x, int y) {
+        return type(get(x, y));
+    }
+
+    public int getColor(int x, int y) {
+        return color(get(x, y));
+    }
+
+    public Cell getCell(int x, int y) {
+        int cell = get(x, y);
+
+        return new Cell(type(cell), color(cell));
+    }
+
+    public void set(int x, int y, int type, int color) {
+        int cell = pack(type, color);
+        int index = y * width + x;
+
+        if (trailEnabled && rows[index] != cell) {
+            if (trailSize + 2 > trail.length) {
+                trail = Arrays.copyOf(trail, Math.max(16, trail.length * 2));
+            }
+
+            trail[trailSize++] = index;
+            trail[trailSize++] = rows[index];
+        }
+
+        updateCounts(x, y, rows[index], cell);
+        rows[index] = cell;
+        columns[x * height + y] = cell;
+    }
+
+    private void updateCounts(int x, int y, int oldCell, int newCell) {
+        if (isCellFilled(oldCell) != isCellFilled(newCell)) {
+            int delta = isCellFilled(newCell) ? 1 : -1;
+
+            filledInRow[y] += delta;
+            filledInColumn[x] += delta;
+        }
+
+        if (isCellEmpty(oldCell) != isCellEmpty(newCell)) {
+            int delta = isCellEmpty(newCell) ? -1 : 1;
+
+            if (solvedInRow[y] == width || solvedInRow[y] + delta == width) {
+                unsolvedLines -= delta;
+            }
+            if (solvedInColumn[x] == height || solvedInColumn[x] + delta == height) {
+                unsolvedLines -= delta;
+            }
+
+            solvedInRow[y] += delta;
+            solvedInColumn[x] += delta;
+        }
+    }
+
+    public void set(int x, int y, Cell cell) {
+        set(x, y, cell.getType(), cell.getColor());
+    }
+
+    public boolean isEmpty(int x, int y) {
+        return isCellEmpty(get(x, y));
+    }
+
+    public boolean isFilled(int x, int y) {
+        return isCellFilled(get(x, y));
+    }
+
+    public boolean isFilled(int x, int y, int color) {
+        return isCellFilled(get(x, y), color);
+    }
+
+    public boolean isCrossed(int x, int y) {
+        return isCellCrossed(get(x, y));
+    }
+
+    /**
+     * @return a copy of the grid in row-major order
+     */
+    public int[] copy() {
+        return rows.clone();
+    }
+
+    /**
+     * Restores the grid from a copy made by {@link #copy()}.
+     * The trail is cleared.
+     */
+    public void restore(int[] copy) {
+        if (copy.length != rows.length) {
+            throw new IllegalArgumentException("Invalid copy length: " + copy.length);
+        }
+
+        System.arraycopy(copy, 0, rows, 0, rows.length);
+        Arrays.fill(filledInRow, 0);
+        Arrays.fill(filledInColumn, 0);
+        Arrays.fill(solvedInRow, 0);
+        Arrays.fill(solvedInColumn, 0);
+        unsolvedLines = width + height;
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int cell = copy[y * width + x];
+                columns[x * height + y] = cell;
+                updateCounts(x, y, Cell.EMPTY, cell);
+            }
+        }
+
+        clearTrail();
+    }
+
+    public void clear() {
+        Arrays.fill(rows, 0);
+        Arrays.fill(columns, 0);
+        Arrays.fill(filledInRow, 0);
+        Arrays.fill(filledInColumn, 0);
+        Arrays.fill(solvedInRow, 0);
+        Arrays.fill(solvedInColumn, 0);
+        unsolvedLines = width + height;
+        clearTrail();
+    }
+
+    public void setTrailEnabled(boolean trailEnabled) {
+        this.trailEnabled = trailEnabled;
+
+        if (!trailEnabled) {
+            clearTrail();
+        }
+    }
+
+    public boolean isTrailEnabled() {
+        return trailEnabled;
+    }
+
+    /**
+     * @return a mark that can be passed to {@link #undo(int)} to restore the grid to its current state
+     */
+    public int mark() {
+        return trailSize / 2;
+    }
+
+    /**
+     * Undoes all modifications made since the mark was created, from the most recent one to the oldest one
+     */
+    public void undo(int mark) {
+        if (mark < 0 || mark > mark()) {
+            throw new IllegalArgumentException("Invalid mark: " + mark);
+        }
+
+        while (trailSize > mark * 2) {
+            int old = trail[--trailSize];
+            int index = trail[--trailSize];
+            int x = index % width;
+            int y = index / width;
+
+            updateCounts(x, y, rows[index], old);
+            rows[index] = old;
+            columns[x * height + y] = old;
+        }
+    }
+
+    /**
+     * @param i index of a modification, between 0 (inclusive) and {@link #mark()} (exclusive)
+     * @return the index in row-major order of the modified cell
+     */
+    public int getTrailIndex(int i) {
+        return trail[2 * i];
+    }
+
+    /**
+     * Forgets all modifications. Marks created before are no longer valid
+     */
+    public void clearTrail() {
+        trailSize = 0;
+    }
+
+    /**
+     * The returned array must not be modified.
+     * The cell (x, y) is at y * width + x.
+     *
+     * @return the grid in row-major order
+     */
+    public int[] getRows() {
+        return rows;
+    }
+
+    /**
+     * The returned array must not be modified.
+     * The cell (x, y) is at x * height + y.
+     *
+     * @return the grid in column-major order
+     */
+    public int[] getColumns() {
+        return columns;
+    }
+
+    public int getFilledInRow(int y) {
+        return filledInRow[y];
+    }
+
+    public int getFilledInColumn(int x) {
+        return filledInColumn[x];
+    }
+
+    public int getSolvedInRow(int y) {
+        return solvedInRow[y];
+    }
+
+    public int getSolvedInColumn(int x) {
+        return solvedInColumn[x];
+    }
+
+    /**
+     * @return the number of rows and columns with at least one empty cell
+     */
+    public int getUnsolvedLines() {
+        return unsolvedLines;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+
+    public static int pack(int type, int color) {
+        if (type == Cell.FILLED) {
+            return color << 2 | Cell.FILLED;
+        } else {
+            return type;
+        }
+    }
+
+    public static int type(int cell) {
+        return cell & 0b11;
+    }
+
+    public static int color(int cell) {
+        return cell >>> 2;
+    }
+
+    public static boolean isCellEmpty(int cell) {
+        return cell == Cell.EMPTY;
+    }
+
+    public static boolean isCellFilled(int cell) {
+        return type(cell) == Cell.FILLED;
+    }
+
+    public static boolean isCellFilled(int cell, int color) {
+        return cell == pack(Cell.FILLED, color);
+    }
+
+    public static boolean isCellCrossed(int cell) {
+        return cell == Cell.CROSSED;
+    }
+}
@@ -0,0 +1,245 @@
+package fr.poulpogaz.nonogramssolver;
+
+import fr.poulpogaz.nonogramssolver.utils.Utils;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Renders frames of a nonogram as {@link BufferedImage#TYPE_BYTE_INDEXED} images, which
+ * the gif encoder writes without quantizing them.
+ * <br>
+ * Clues and grid lines don't change between frames: they are drawn once by a
+ * {@link NonogramRenderer} in a static layer. A frame is a copy of this layer where each cell
+ * is filled with the index of its color. Crosses are drawn without antialiasing.
+ */
+public class IndexedNonogramRenderer implements FramePipeline.FrameRenderer {
+
+    private static final int MAX_COLORS = 256;
+
+    private final int width;
+    private final int height;
+    private final int squareSize;
+
+    private final int imageWidth;
+    private final int imageHeight;
+    private final int gridOffsetX;
+    private final int gridOffsetY;
+
+    /**
+     * Pixels of a square drawn by a cell. When the grid is drawn, the first row
+     * and the first column of each square belong to the grid.
+     */
+    private final int cellOffset;
+    private final int cellSize;
+
+    private final IndexColorModel colorModel;
+    private final byte[] staticLayer;
+
+    private final byte emptyIndex;
+    private final byte crossedIndex;
+    private final byte crossIndex;
+    private final byte[] colorIndices;
+
+    /**
+     * @param template nonogram whose clues and colors are drawn. Its grid is ignored
+     */
+    public IndexedNonogramRenderer(Nonogram template, NonogramRenderer renderer, int squareSize) {
+        this.width = template.getWidth();
+        this.height = template.getHeight();
+        this.squareSize = squareSize;
+
+        Nonogram empty = new Nonogram(template);
+        empty.getGrid().clear();
+        BufferedImage layer = renderer.asImage(empty, squareSize);
+
+        imageWidth = layer.getWidth();
+        imageHeight = layer.getHeight();
+        gridOffsetX = imageWidth - width * squareSize;
+        gridOffsetY = imageHeight - height * squareSize;
+
+        if (squareSize > 5) {
+            cellOffset = 1;
+        } else {
+            cellOffset = 0;
+        }
+        cellSize = squareSize - cellOffset;
+
+        // the colors of cells are in the palette, unless there are more than 253 of them,
+        // the remaining slots are filled with the most used colors of the static layer
+        Color background = template.getBackground();
+        Color cross = Utils.isDark(background) ? Color.WHITE : Color.BLACK;
+        Color[] colors = template.getColors();
+
+        Palette palette = new Palette();
+        emptyIndex = palette.add(Color.WHITE.getRGB());
+        crossedIndex = palette.add(background.getRGB());
+        crossIndex = palette.add(cross.getRGB());
+        colorIndices = new byte[colors.length];
+        for (int i = 0; i < colors.length; i++) {
+            colorIndices[i] = palette.add(colors[i].getRGB());
+        }
+
+        int[] pixels = layer.getRGB(0, 0, imageWidth, imageHeight, null, 0, imageWidth);
+        palette.addMostUsed(pixels);
+
+        colorModel = palette.createColorModel();
+        staticLayer = new byte[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            staticLayer[i] = palette.indexOf(pixels[i]);
+        }
+    }
+
+    @Override
+    public BufferedImage render(Nonogram n) {
+        return render(n, new Rectangle(0, 0, width, height), new Rectangle(0, 0, imageWidth, imageHeight));
+    }
+
+    /**
+     * Renders the region returned by {@link #regionOf(Nonogram, Rectangle)}. Unlike
+     * {@link NonogramRenderer}, a cell only draws in its square so there is no margin.
+     */
+    @Override
+    public BufferedImage render(Nonogram n, Rectangle cells) {
+        return render(n, cells, regionOf(n, cells));
+    }
+
+    private BufferedImage render(Nonogram n, Rectangle cells, Rectangle region) {
+        byte[] pixels = new byte[region.width * region.height];
+
+        for (int y = 0; y < region.height; y++) {
+            System.arraycopy(staticLayer, (region.y + y) * imageWidth + region.x,
+                    pixels, y * region.width, region.width);
+        }
+
+        Grid grid = n.getGrid();
+        for (int y = cells.y; y < cells.y + cells.height; y++) {
+            for (int x = cells.x; x < cells.x + cells.width; x++) {
+                int drawX = gridOffsetX + x * squareSize + cellOffset - region.x;
+                int drawY = gridOffsetY + y * squareSize + cellOffset - region.y;
+
+                drawCell(pixels, region.width, drawX, drawY, grid.get(x, y));
+            }
+        }
+
+        WritableRaster raster = Raster.createInterleavedRaster(
+                new DataBufferByte(pixels, pixels.length),
+                region.width, region.height, region.width, 1, new int[] {0}, null);
+
+        return new BufferedImage(colorModel, raster, false, null);
+    }
+
+    private void drawCell(byte[] pixels, int scanline, int drawX, int drawY, int cell) {
+        if (Grid.isCellFilled(cell)) {
+            fill(pixels, scanline, drawX, drawY, colorIndices[Grid.color(cell)]);
+        } else if (Grid.isCellCrossed(cell) && squareSize >= 3) {
+            fill(pixels, scanline, drawX, drawY, crossedIndex);
+
+            for (int i = 0; i < cellSize; i++) {
+                int row = (drawY + i) * scanline + drawX;
+                pixels[row + i] = crossIndex;
+                pixels[row + cellSize - 1 - i] = crossIndex;
+            }
+        } else {
+            fill(pixels, scanline, drawX, drawY, emptyIndex);
+        }
+    }
+
+    private void fill(byte[] pixels, int scanline, int drawX, int drawY, byte index) {
+        for (int y = drawY; y < drawY + cellSize; y++) {
+            int start = y * scanline + drawX;
+            Arrays.fill(pixels, start, start + cellSize, index);
+        }
+    }
+
+    @Override
+    public Rectangle regionOf(Nonogram n, Rectangle cells) {
+        return new Rectangle(
+                gridOffsetX + cells.x * squareSize,
+                gridOffsetY + cells.y * squareSize,
+                cells.width * squareSize,
+                cells.height * squareSize);
+    }
+
+    public IndexColorModel getColorModel() {
+        return colorModel;
+    }
+
+    /**
+     * At most 256 colors. Colors which don't fit are replaced by the nearest one.
+     */
+    private static class Palette {
+
+        private final int[] rgb = new int[MAX_COLORS];
+        private final Map<Integer, Byte> indices = new HashMap<>();
+        private int size = 0;
+
+        byte add(int color) {
+            color |= 0xFF000000;
+
+            Byte index = indices.get(color);
+            if (index != null) {
+                return index;
+            }
+            if (size >= MAX_COLORS) {
+                return indexOf(color);
+            }
+
+            rgb[size] = color;
+            indices.put(color, (byte) size);
+            return (byte) size++;
+        }
+
+        void addMostUsed(int[] pixels) {
+            Map<Integer, Integer> counts = new HashMap<>();
+            for (int pixel : pixels) {
+                counts.merge(pixel | 0xFF000000, 1, Integer::sum);
+            }
+
+            counts.entrySet()
+                    .stream()
+                    .filter(e -> !indices.containsKey(e.getKey()))
+                    .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed())
+                    .limit(MAX_COLORS - size)
+                    .forEach(e -> add(e.getKey()));
+        }
+
+        byte indexOf(int color) {
+            color |= 0xFF000000;
+
+            Byte index = indices.get(color);
+            if (index != null) {
+                return index;
+            }
+
+            int nearest = 0;
+            int nearestDistance = Integer.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                int distance = distance(color, rgb[i]);
+
+                if (distance < nearestDistance) {
+                    nearest = i;
+                    nearestDistance = distance;
+                }
+            }
+
+            indices.put(color, (byte) nearest);
+            return (byte) nearest;
+        }
+
+        private int distance(int a, int b) {
+            int red = ((a >> 16) & 0xFF) - ((b >> 16) & 0xFF);
+            int green = ((a >> 8) & 0xFF) - ((b >> 8) & 0xFF);
+            int blue = (a & 0xFF) - (b & 0xFF);
+
+            return red * red + green * green + blue * blue;
+        }
+
+        IndexColorModel createColorModel() {
+            return new IndexColorModel(8, size, rgb, 0, false, -1, DataBuffer.TYPE_BYTE);
+        }
+    }
+}
@@ -1,12 +1,29 @@
 package fr.poulpogaz.nonogramssolver;
 
+import fr.poulpogaz.nonogramssolver.bench.BenchmarkReport;
+import fr.poulpogaz.nonogramssolver.bench.ReportComparison;
+import fr.poulpogaz.nonogramssolver.bench.SolverBenchmark;
+import fr.poulpogaz.nonogramssolver.linesolver.BitwiseLineSolver;
+import fr.poulpogaz.nonogramssolver.linesolver.CachedLineSolver;
+import fr.poulpogaz.nonogramssolver.linesolver.DefaultLineSolver;
+import fr.poulpogaz.nonogramssolver.linesolver.DynamicLineSolver;
+import fr.poulpogaz.nonogramssolver.linesolver.LineSolver;
+import fr.poulpogaz.nonogramssolver.reader.BinaryCorpus;
+import fr.poulpogaz.nonogramssolver.reader.BinaryCorpusWriter;
 import fr.poulpogaz.nonogramssolver.reader.ImageReader;
+import fr.poulpogaz.nonogramssolver.reader.WebpbnCorpus;
 import fr.poulpogaz.nonogramssolver.reader.WebpbnReader;
+import fr.poulpogaz.nonogramssolver.server.SolverServer;
 import fr.poulpogaz.nonogramssolver.solver.Description;
 import fr.poulpogaz.nonogramssolver.solver.NonogramSolver;
+import fr.poulpogaz.nonogramssolver.solver.NonogramSolverPool;
 import fr.poulpogaz.nonogramssolver.solver.SolverAdapter;
 import fr.poulpogaz.nonogramssolver.solver.SolverListener;
+import fr.poulpogaz.nonogramssolver.solver.SolverStats;
+import fr.poulpogaz.nonogramssolver.utils.Json;
 import fr.poulpogaz.nonogramssolver.utils.Utils;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import picocli.CommandLine;
@@ -19,20 +36,37 @@ import java.awt.image.BufferedImage;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayDeque;
-import java.util.Queue;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 @CommandLine.Command(version = "1.0")
-public class Main implements Runnable {
+public class Main implements Callable<Integer> {
 
     private static final Logger LOGGER = LogManager.getLogger(Main.class);
 
     public static void main(String[] args) {
-        new CommandLine(new Main())
+        int exitCode = new CommandLine(new Main())
                 .setCaseInsensitiveEnumValuesAllowed(true)
                 .execute(args);
+
+        // the server and the monitor keep running after execute returns
+        if (exitCode != 0) {
+            System.exit(exitCode);
+        }
     }
 
     private static class ImageInput {
@@ -65,17 +99,286 @@ public class Main implements Runnable {
     }
 
 
+    private static class BatchInput {
+
+        private static final ImageReader imageReader = new ImageReader();
+        private static final Set<String> imageExtensions = Set.of(ImageIO.getReaderFileSuffixes());
+
+        @CommandLine.Option(names = {"--batch"}, required = true,
+                description = "Solve all images, webpbn xml files and binary corpora of a directory, " +
+                        "or all puzzles of a binary corpus")
+        private Path directory;
+
+        @CommandLine.Option(names = {"--batch-threads"},
+                description = "Number of nonograms solved concurrently. Default: number of processors")
+        private int threads = Runtime.getRuntime().availableProcessors();
+
+        public PuzzleList listPuzzles() throws IOException {
+            PuzzleList puzzles = new PuzzleList();
+
+            if (Files.isRegularFile(directory) && isCorpus(directory)) {
+                puzzles.add(directory, directory.getFileName().toString());
+                return puzzles;
+            }
+            if (!Files.isDirectory(directory)) {
+                System.err.println("Input isn't a directory or a binary corpus");
+                return null;
+            }
+
+            try (Stream<Path> files = Files.list(directory)) {
+                List<Path> list = files.filter(Files::isRegularFile)
+                        .filter(BatchInput::isSupported)
+                        .sorted()
+                        .toList();
+
+                for (Path file : list) {
+                    puzzles.add(file, file.getFileName().toString());
+                }
+            } catch (IOException | RuntimeException e) {
+                puzzles.close();
+                throw e;
+            }
+
+            return puzzles;
+        }
+
+        private static boolean isSupported(Path file) {
+            String extension = Utils.getExtension(file).toLowerCase(Locale.ROOT);
+
+            return extension.equals("xml") || isCorpus(file) || imageExtensions.contains(extension);
+        }
+
+        private static boolean isCorpus(Path file) {
+            return Utils.getExtension(file).equalsIgnoreCase(BinaryCorpus.EXTENSION);
+        }
+
+        public static Nonogram createNonogram(Path file) throws IOException {
+            if (Utils.getExtension(file).equalsIgnoreCase("xml")) {
+                return new WebpbnReader().read(file);
+            } else {
+                return imageReader.read(file, true, null);
+            }
+        }
+    }
+
+
+    private static class ServerInput {
+
+        @CommandLine.Option(names = {"--server"}, required = true,
+                description = "Start a http server solving nonograms on this port")
+        private int port;
+
+        @CommandLine.Option(names = {"--server-workers"},
+                description = "Number of nonograms solved concurrently. Default: number of processors")
+        private int workers = Runtime.getRuntime().availableProcessors();
+
+        @CommandLine.Option(names = {"--server-queue"}, defaultValue = "64",
+                description = "Number of nonograms waiting for a worker before the server answers 503")
+        private int queueSize;
+
+        @CommandLine.Option(names = {"--server-timeout"}, defaultValue = "10000",
+                description = "Maximal time in milliseconds to solve a nonogram")
+        private long timeout;
+    }
+
+
+    private static class ConvertInput {
+
+        private static final ImageReader imageReader = new ImageReader();
+        private static final Set<String> imageExtensions = Set.of(ImageIO.getReaderFileSuffixes());
+
+        @CommandLine.Option(names = {"--convert"}, required = true, split = ",",
+                description = "Write images, webpbn xml files, zip archives of xml files and directories " +
+                        "to the binary corpus given by --output")
+        private List<Path> paths;
+
+        /**
+         * Writes images and webpbn puzzles. Images are read in monochrome and their id is their file name.
+         */
+        public void convert(BinaryCorpusWriter writer) throws IOException {
+            List<Path> webpbn = new ArrayList<>();
+
+            for (Path path : paths) {
+                if (Files.isDirectory(path)) {
+                    try (Stream<Path> files = Files.walk(path)) {
+                        List<Path> list = files.filter(Files::isRegularFile).sorted().toList();
+
+                        for (Path file : list) {
+                            convert(writer, file, webpbn, false);
+                        }
+                    }
+                } else {
+                    convert(writer, path, webpbn, true);
+                }
+            }
+
+            if (!webpbn.isEmpty()) {
+                WebpbnCorpus corpus = WebpbnCorpus.load(webpbn, Runtime.getRuntime().availableProcessors());
+
+                corpus.forEach(writer::write);
+            }
+        }
+
+        private void convert(BinaryCorpusWriter writer, Path file, List<Path> webpbn, boolean explicit) throws IOException {
+            String extension = Utils.getExtension(file).toLowerCase(Locale.ROOT);
+
+            if (extension.equals("xml") || extension.equals("zip")) {
+                webpbn.add(file);
+            } else if (imageExtensions.contains(extension)) {
+                writer.write(Utils.getFileName(file), imageReader.read(file, true, null));
+            } else if (explicit) {
+                throw new IOException("Unsupported file: " + file);
+            }
+        }
+    }
+
+
+    private static class BenchmarkInput {
+
+        @CommandLine.Option(names = {"--bench"}, required = true, split = ",",
+                description = "Measure the time taken to solve images, webpbn xml files and puzzles of binary corpora. " +
+                        "Directories are explored, gif files are ignored. Puzzles are named by their path in the directory")
+        private List<Path> paths;
+
+        @CommandLine.Option(names = {"--bench-warmup"}, defaultValue = "3",
+                description = "Number of iterations per puzzle before measuring")
+        private int warmup;
+
+        @CommandLine.Option(names = {"--bench-iterations"}, defaultValue = "5",
+                description = "Number of measured iterations per puzzle")
+        private int iterations;
+
+        @CommandLine.Option(names = {"--bench-baseline"},
+                description = "Report to compare with")
+        private Path baseline;
+
+        public PuzzleList listPuzzles() throws IOException {
+            PuzzleList puzzles = new PuzzleList();
+
+            try {
+                for (Path path : paths) {
+                    if (Files.isDirectory(path)) {
+                        List<Path> files;
+                        try (Stream<Path> stream = Files.walk(path)) {
+                            files = stream.filter(Files::isRegularFile)
+                                    .filter(BenchmarkInput::isSupported)
+                                    .sorted()
+                                    .toList();
+                        }
+
+                        for (Path file : files) {
+                            puzzles.add(file, nameOf(path, file));
+                        }
+                    } else {
+                        puzzles.add(path, path.getFileName().toString());
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                puzzles.close();
+                throw e;
+            }
+
+            return puzzles;
+        }
+
+        private static boolean isSupported(Path file) {
+            return BatchInput.isSupported(file) && !Utils.getExtension(file).equalsIgnoreCase("gif");
+        }
+
+        /**
+         * @return the path of the file relative to the directory, with '/' as separator
+         * so that reports can be compared between systems
+         */
+        private static String nameOf(Path directory, Path file) {
+            return directory.relativize(file).toString().replace(File.separatorChar, '/');
+        }
+    }
+
+
+    /**
+     * A puzzle of --batch or --bench: an image, a webpbn xml file or a puzzle of a binary corpus
+     */
+    private record Puzzle(String name, Path file, BinaryCorpus corpus, int index) {
+
+        public Nonogram read() throws IOException {
+            if (corpus != null) {
+                return corpus.get(index);
+            } else {
+                return BatchInput.createNonogram(file);
+            }
+        }
+    }
+
+
+    /**
+     * Puzzles of --batch or --bench. Binary corpora stay open until the list is closed
+     */
+    private static class PuzzleList implements Closeable {
+
+        private final List<Puzzle> puzzles = new ArrayList<>();
+        private final List<BinaryCorpus> corpora = new ArrayList<>();
+
+        /**
+         * Adds the file or, if it is a binary corpus, all its puzzles. They are named {@code name/id}
+         */
+        public void add(Path file, String name) throws IOException {
+            if (BatchInput.isCorpus(file)) {
+                BinaryCorpus corpus = BinaryCorpus.open(file);
+                corpora.add(corpus);
+
+                for (int i = 0; i < corpus.size(); i++) {
+                    puzzles.add(new Puzzle(name + "/" + corpus.getId(i), file, corpus, i));
+                }
+            } else {
+                puzzles.add(new Puzzle(name, file, null, 0));
+            }
+        }
+
+        public List<Puzzle> getPuzzles() {
+            return puzzles;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (BinaryCorpus corpus : corpora) {
+                corpus.close();
+            }
+        }
+    }
+
+
     private static class Input {
 
         @CommandLine.ArgGroup(exclusive = false)
         private ImageInput image;
 
+        @CommandLine.ArgGroup(exclusive = false)
+        private BatchInput batch;
+
+        @CommandLine.ArgGroup(exclusive = false)
+        private ServerInput server;
+
+        @CommandLine.ArgGroup(exclusive = false)
+        private ConvertInput convert;
+
+        @CommandLine.ArgGroup(exclusive = false)
+        private BenchmarkInput benchmark;
+
+        @CommandLine.Option(names = {"--compare"}, arity = "2",
+                description = "Compare two benchmark reports: the baseline then the current one")
+        private Path[] compare;
+
         @CommandLine.Option(names = {"-w", "--webpbn"})
         private String webpbn;
 
-        public Nonogram createNonogram() throws IOException, InterruptedException {
+        /**
+         * @param corpus puzzles stored locally, searched before downloading from webpbn. Can be null
+         */
+        public Nonogram createNonogram(WebpbnCorpus corpus) throws IOException, InterruptedException {
             if (image != null) {
                 return image.createNonogram();
+            } else if (corpus != null && corpus.contains(webpbn)) {
+                return corpus.get(webpbn);
             } else {
                 return new WebpbnReader().read(webpbn);
             }
@@ -96,6 +399,26 @@ public class Main implements Runnable {
         public boolean isWebpbnInput() {
             return webpbn != null;
         }
+
+        public boolean isBatchInput() {
+            return batch != null;
+        }
+
+        public boolean isServerInput() {
+            return server != null;
+        }
+
+        public boolean isConvertInput() {
+            return convert != null;
+        }
+
+        public boolean isBenchmarkInput() {
+            return benchmark != null;
+        }
+
+        public boolean isCompareInput() {
+            return compare != null;
+        }
     }
 
 
@@ -106,6 +429,15 @@ public class Main implements Runnable {
     @CommandLine.ArgGroup
     private Input input;
 
+    @CommandLine.Option(names = {"--corpus"}, split = ",",
+            description = "Xml files, directories or zip archives of puzzles exported from webpbn. " +
+                    "--webpbn looks for the puzzle in them before downloading it")
+    private List<Path> corpus;
+
+    @CommandLine.Option(names = {"--regression-threshold"}, defaultValue = "0.1",
+            description = "Relative increase of the median time above which a puzzle is a regression")
+    private double regressionThreshold;
+
     @CommandLine.Option(names = {"-o", "--output"}, description = "output")
     private Path output;
 
@@ -118,12 +450,45 @@ public class Main implements Runnable {
     @CommandLine.Option(names = {"-t", "--time-between-frames"}, defaultValue = "-1")
     private int timeBetweenFrames;
 
+    @CommandLine.Option(names = {"--frame-queue"}, defaultValue = "64",
+            description = "Maximal number of frames waiting to be rendered when writing a gif or images")
+    private int frameQueueSize;
+
+    @CommandLine.Option(names = {"--frame-policy"}, defaultValue = "block",
+            description = "What to do when the frame queue is full: ${COMPLETION-CANDIDATES}. " +
+                    "drop discards the oldest frames instead of slowing down the solver")
+    private FramePipeline.Policy framePolicy;
+
     @CommandLine.Option(names = {"--no-contradiction"})
     private boolean noContradiction;
 
     @CommandLine.Option(names = {"--no-recursion"})
     private boolean noRecursion;
 
+    @CommandLine.Option(names = {"--line-solver"}, defaultValue = "default",
+            description = "Line solver to use: ${COMPLETION-CANDIDATES}")
+    private LineSolverType lineSolver;
+
+    @CommandLine.Option(names = {"--deep-line-solver"},
+            description = "Line solver to use when searching contradictions and guessing: ${COMPLETION-CANDIDATES}")
+    private LineSolverType deepLineSolver;
+
+    @CommandLine.Option(names = {"--line-cache"}, defaultValue = "0",
+            description = "Maximal number of line solver results to remember. 0 to disable")
+    private int lineCacheSize;
+
+    @CommandLine.Option(names = {"--threads"}, defaultValue = "1",
+            description = "Number of threads used to search contradictions and to guess")
+    private int threads;
+
+    @CommandLine.Option(names = {"--stats"},
+            description = "Print counters and the time spent in each mode of the solver")
+    private boolean printStats;
+
+    @CommandLine.Option(names = {"--jfr"},
+            description = "Record the execution with the flight recorder in this file")
+    private Path jfr;
+
     @CommandLine.Option(names = {"-m", "--monitor"})
     private boolean monitor;
 
@@ -133,17 +498,72 @@ public class Main implements Runnable {
 
     private final NonogramRenderer renderer = NonogramRenderer.DEFAULT;
 
+    /**
+     * @return the exit code: 1 if a benchmark comparison found a regression, 0 otherwise
+     */
     @Override
-    public void run() {
+    public Integer call() {
+        Recording recording = jfr == null ? null : startRecording();
+
+        try {
+            return execute();
+        } finally {
+            // the server runs until the JVM exits: the recording is written on exit
+            if (recording != null && !input.isServerInput()) {
+                recording.stop();
+                recording.close();
+            }
+        }
+    }
+
+    /**
+     * Starts a flight recording with the default settings, which have a low overhead,
+     * and the events of the solver.
+     */
+    private Recording startRecording() {
+        try {
+            Recording recording = new Recording(Configuration.getConfiguration("default"));
+            recording.setName("nonograms-solver");
+            recording.setDestination(jfr);
+            recording.setDumpOnExit(true);
+            recording.start();
+
+            return recording;
+        } catch (IOException | ParseException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private int execute() {
+        if (input.isBatchInput()) {
+            runBatch(input.batch);
+            return 0;
+        } else if (input.isServerInput()) {
+            runServer(input.server);
+            return 0;
+        } else if (input.isConvertInput()) {
+            runConvert(input.convert);
+            return 0;
+        } else if (input.isBenchmarkInput()) {
+            return runBenchmark(input.benchmark);
+        } else if (input.isCompareInput()) {
+            return runCompare(input.compare[0], input.compare[1]);
+        }
+
         Nonogram nonogram;
         try {
-            nonogram = input.createNonogram();
+            WebpbnCorpus corpus = null;
+            if (input.isWebpbnInput() && this.corpus != null) {
+                corpus = WebpbnCorpus.load(this.corpus, Runtime.getRuntime().availableProcessors());
+            }
+
+            nonogram = input.createNonogram(corpus);
         } catch (IOException | InterruptedException e) {
             throw new RuntimeException(e);
         }
 
         if (nonogram == null) {
-            return;
+            return 0;
         }
 
 
@@ -151,7 +571,7 @@ public class Main implements Runnable {
         try {
             try (BasicListener outputListener = createOutput()) {
                 if (outputListener == null) {
-                    return;
+                    return 0;
                 }
 
                 SolverListener listener = outputListener;
@@ -161,10 +581,17 @@ public class Main implements Runnable {
                     listener = m.runAsynchronously(outputListener);
                 }
 
-                NonogramSolver solver = new NonogramSolver();
-                boolean solved = solver.solve(nonogram, listener, !noContradiction, !noRecursion);
+                NonogramSolver solver = createSolver();
+                SolverStats stats = solver.solve(nonogram, listener, !noContradiction, !noRecursion);
+                logCacheStatistics(solver.getLineSolver());
+                if (solver.getDeepLineSolver() != solver.getLineSolver()) {
+                    logCacheStatistics(solver.getDeepLineSolver());
+                }
+                if (printStats) {
+                    System.out.println(stats);
+                }
 
-                if (solved) {
+                if (stats.isSolved()) {
                     listener.onSuccess(nonogram);
                 } else {
                     listener.onFail(nonogram);
@@ -180,6 +607,275 @@ public class Main implements Runnable {
 
         long time2 = System.currentTimeMillis();
         System.out.println("Time elapsed: " + (time2 - time));
+        return 0;
+    }
+
+    /**
+     * Solves all nonograms of a directory concurrently. The result of each nonogram
+     * is written to the output as soon as it is solved.
+     */
+    private void runBatch(BatchInput batch) {
+        PuzzleList puzzles;
+        try {
+            puzzles = batch.listPuzzles();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        if (puzzles == null) {
+            return;
+        }
+
+        long time = System.currentTimeMillis();
+        int solved = 0;
+        try (puzzles; BatchOutput out = createBatchOutput()) {
+            if (out == null) {
+                return;
+            }
+
+            NonogramSolverPool solvers = new NonogramSolverPool(this::createSolver);
+
+            List<Callable<BatchResult>> tasks = new ArrayList<>(puzzles.getPuzzles().size());
+            for (Puzzle puzzle : puzzles.getPuzzles()) {
+                tasks.add(() -> {
+                    BatchResult result = solveBatch(solvers.get(), puzzle);
+                    out.write(result);
+
+                    return result;
+                });
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(batch.threads);
+            try {
+                for (Future<BatchResult> future : executor.invokeAll(tasks)) {
+                    if (future.get().status().equals(BatchResult.SOLVED)) {
+                        solved++;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        long time2 = System.currentTimeMillis();
+        System.err.printf("Solved %d/%d nonograms%n", solved, puzzles.getPuzzles().size());
+        System.err.println("Time elapsed: " + (time2 - time));
+    }
+
+    /**
+     * Starts the server. It runs until the JVM is stopped
+     */
+    private void runServer(ServerInput input) {
+        SolverServer server;
+        try {
+            server = new SolverServer(new InetSocketAddress(input.port),
+                    input.workers, input.queueSize, input.timeout, this::createSolver);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        server.start();
+        System.out.println("Listening on port " + server.getAddress().getPort());
+    }
+
+    /**
+     * Writes the inputs to a binary corpus
+     */
+    private void runConvert(ConvertInput convert) {
+        if (output == null) {
+            System.err.println("No output");
+            return;
+        }
+
+        try (BinaryCorpusWriter writer = new BinaryCorpusWriter(output)) {
+            convert.convert(writer);
+            System.out.println("Wrote " + writer.size() + " nonograms to " + output);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Solves each puzzle several times and writes the report to the output,
+     * then compares it with the baseline if there is one
+     */
+    private int runBenchmark(BenchmarkInput input) {
+        try {
+            BenchmarkReport baseline = input.baseline == null ? null : BenchmarkReport.read(input.baseline);
+
+            SolverBenchmark benchmark = new SolverBenchmark(createSolver(),
+                    input.warmup, input.iterations, !noContradiction, !noRecursion);
+
+            List<BenchmarkReport.Result> results = new ArrayList<>();
+            try (PuzzleList puzzles = input.listPuzzles()) {
+                Set<String> names = new HashSet<>();
+                for (Puzzle puzzle : puzzles.getPuzzles()) {
+                    if (!names.add(puzzle.name())) {
+                        System.err.println("Two puzzles are named " + puzzle.name());
+                        return 1;
+                    }
+                }
+
+                for (Puzzle puzzle : puzzles.getPuzzles()) {
+                    BenchmarkReport.Result result = benchmark.run(puzzle.name(), puzzle.read());
+                    results.add(result);
+
+                    System.out.printf(Locale.ROOT, "%-30s %4dx%-4d %10.3f ms  (line solving %.3f, contradiction %.3f, recursion %.3f)%s%n",
+                            result.name(), result.width(), result.height(), result.medianTime() / 1e6,
+                            result.lineSolvingTime() / 1e6, result.contradictionTime() / 1e6, result.recursionTime() / 1e6,
+                            result.solved() ? "" : "  not solved");
+                }
+            }
+
+            BenchmarkReport report = new BenchmarkReport(describeSolver(), input.warmup, input.iterations, results);
+            if (output != null) {
+                report.write(output);
+            }
+
+            if (baseline != null) {
+                return printComparison(new ReportComparison(baseline, report, regressionThreshold));
+            }
+            return 0;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private int runCompare(Path baseline, Path current) {
+        try {
+            return printComparison(new ReportComparison(BenchmarkReport.read(baseline),
+                    BenchmarkReport.read(current), regressionThreshold));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Prints the differences
+     *
+     * @return 1 if there is a regression, 0 otherwise
+     */
+    private int printComparison(ReportComparison comparison) {
+        for (ReportComparison.Difference d : comparison.getDifferences()) {
+            if (d.status() == ReportComparison.Status.MISSING) {
+                System.out.printf("%-30s missing%n", d.name());
+            } else {
+                System.out.printf(Locale.ROOT, "%-30s %10.3f ms -> %10.3f ms  %+7.1f%%  %s%n",
+                        d.name(), d.baselineTime() / 1e6, d.currentTime() / 1e6, (d.ratio() - 1) * 100,
+                        d.status() == ReportComparison.Status.UNCHANGED ? "" : d.status());
+            }
+        }
+
+        System.out.printf("%d regressions, %d improvements%n",
+                comparison.count(ReportComparison.Status.REGRESSION),
+                comparison.count(ReportComparison.Status.IMPROVEMENT));
+
+        return comparison.hasRegression() ? 1 : 0;
+    }
+
+    private String describeSolver() {
+        LineSolverType deepLineSolver = this.deepLineSolver == null ? lineSolver : this.deepLineSolver;
+
+        return String.format(Locale.ROOT, "line-solver=%s deep-line-solver=%s line-cache=%d threads=%d contradiction=%b recursion=%b",
+                lineSolver, deepLineSolver, lineCacheSize, threads, !noContradiction, !noRecursion).toLowerCase(Locale.ROOT);
+    }
+
+    private BatchResult solveBatch(NonogramSolver solver, Puzzle puzzle) {
+        String name = puzzle.name();
+
+        Nonogram nonogram;
+        try {
+            nonogram = puzzle.read();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Failed to read " + name + ": " + e);
+            return new BatchResult(name, BatchResult.ERROR, 0, 0, 0, 0, 0);
+        }
+
+        long start = System.nanoTime();
+        String status;
+        try {
+            SolverStats stats = solver.solve(nonogram, SolverListener.EMPTY_LISTENER, !noContradiction, !noRecursion);
+            status = stats.isSolved() ? BatchResult.SOLVED : BatchResult.FAILED;
+        } catch (RuntimeException e) {
+            System.err.println("Failed to solve " + name + ": " + e);
+            status = BatchResult.ERROR;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        return new BatchResult(name, status, nonogram.getWidth(), nonogram.getHeight(),
+                elapsed, solver.getStats().getGuesses(), solver.getStats().getProbes());
+    }
+
+    private BatchOutput createBatchOutput() throws IOException {
+        if (output == null) {
+            return new BatchOutput(new PrintWriter(System.out), false, false);
+        }
+
+        String extension = Utils.getExtension(output);
+        if (extension.equals("csv")) {
+            return new BatchOutput(new PrintWriter(Files.newBufferedWriter(output)), false, true);
+        } else if (extension.equals("jsonl")) {
+            return new BatchOutput(new PrintWriter(Files.newBufferedWriter(output)), true, true);
+        } else {
+            System.err.println("Batch output can be a csv or a jsonl file");
+            return null;
+        }
+    }
+
+    private enum LineSolverType {
+        DEFAULT,
+        BITWISE,
+        DYNAMIC;
+
+        public LineSolver create() {
+            return switch (this) {
+                case DEFAULT -> new DefaultLineSolver();
+                case BITWISE -> new BitwiseLineSolver();
+                case DYNAMIC -> new DynamicLineSolver();
+            };
+        }
+    }
+
+    protected NonogramSolver createSolver() {
+        LineSolverType deepLineSolver = this.deepLineSolver == null ? lineSolver : this.deepLineSolver;
+
+        NonogramSolver solver;
+        if (deepLineSolver == lineSolver) {
+            solver = new NonogramSolver(createLineSolver(lineSolver));
+        } else {
+            solver = new NonogramSolver(createLineSolver(lineSolver), createLineSolver(deepLineSolver));
+        }
+
+        if (threads > 1) {
+            solver.setThreads(threads, () -> createLineSolver(deepLineSolver));
+        }
+
+        return solver;
+    }
+
+    private LineSolver createLineSolver(LineSolverType type) {
+        LineSolver solver = type.create();
+
+        if (lineCacheSize > 0) {
+            return new CachedLineSolver(solver, lineCacheSize);
+        } else {
+            return solver;
+        }
+    }
+
+    private void logCacheStatistics(LineSolver solver) {
+        if (solver instanceof CachedLineSolver cache) {
+            LOGGER.debug("Line cache: {} hits, {} misses, {} entries",
+                    cache.getHits(), cache.getMisses(), cache.size());
+        }
     }
 
     protected BasicListener createOutput() throws IOException {
@@ -219,6 +915,71 @@ public class Main implements Runnable {
 
 
 
+    private record BatchResult(String file, String status, int width, int height,
+                               long elapsedNanos, long guesses, long probes) {
+
+        static final String SOLVED = "solved";
+        static final String FAILED = "failed";
+        static final String ERROR = "error";
+
+        String toCSV() {
+            return String.format(Locale.ROOT, "%s,%s,%d,%d,%.3f,%d,%d",
+                    escapeCSV(file), status, width, height, elapsedNanos / 1e6, guesses, probes);
+        }
+
+        String toJSON() {
+            return String.format(Locale.ROOT,
+                    "{\"file\":\"%s\",\"status\":\"%s\",\"width\":%d,\"height\":%d,\"elapsed_ms\":%.3f,\"guesses\":%d,\"probes\":%d}",
+                    Json.escape(file), status, width, height, elapsedNanos / 1e6, guesses, probes);
+        }
+
+        private static String escapeCSV(String str) {
+            if (str.indexOf(',') >= 0 || str.indexOf('"') >= 0 || str.indexOf('\n') >= 0) {
+                return '"' + str.replace("\"", "\"\"") + '"';
+            } else {
+                return str;
+            }
+        }
+    }
+
+    /**
+     * Writes the results of a batch, one line per nonogram, in csv or in jsonl.
+     * Lines are flushed immediately so results can be read while the batch is running.
+     */
+    private static class BatchOutput implements Closeable {
+
+        private static final String CSV_HEADER = "file,status,width,height,elapsed_ms,guesses,probes";
+
+        private final PrintWriter writer;
+        private final boolean json;
+        private final boolean closeWriter;
+
+        public BatchOutput(PrintWriter writer, boolean json, boolean closeWriter) {
+            this.writer = writer;
+            this.json = json;
+            this.closeWriter = closeWriter;
+
+            if (!json) {
+                writer.println(CSV_HEADER);
+                writer.flush();
+            }
+        }
+
+        public synchronized void write(BatchResult result) {
+            writer.println(json ? result.toJSON() : result.toCSV());
+            writer.flush();
+        }
+
+        @Override
+        public void close() {
+            if (closeWriter) {
+                writer.close();
+            } else {
+                writer.flush();
+            }
+        }
+    }
+
     protected class BasicListener extends SolverAdapter implements Closeable {
 
         @Override
@@ -280,37 +1041,34 @@ public class Main implements Runnable {
     }
 
 
+    /**
+     * Writes a frame after each pass or each line. Frames are rendered and written
+     * by a {@link FramePipeline}, the solver only copies the grid.
+     */
     private abstract class MultipleOutput extends BasicListener {
 
         protected final boolean detailed;
         protected final int squareSize;
 
-        protected final Queue<Cell[][]> cells = new ArrayDeque<>();
+        private FramePipeline pipeline;
 
         public MultipleOutput(boolean detailed, int squareSize) {
             this.detailed = detailed;
             this.squareSize = squareSize;
         }
 
+        // probes are undone: only their result is written, by onContradiction
         @Override
         public void onLineSolved(Nonogram n, Description d, int mode) {
-            if (detailed) {
-                if (mode == CONTRADICTION) {
-                    cells.offer(n.getCellsCopy());
-                } else if (mode == LINE_SOLVING) {
-                    newImage(n);
-                }
+            if (detailed && mode == LINE_SOLVING) {
+                newImage(n);
             }
         }
 
         @Override
         public void onPassFinished(Nonogram n, int mode) {
-            if (!detailed) {
-                if (mode == CONTRADICTION) {
-                    cells.offer(n.getCellsCopy());
-                } else if (mode == LINE_SOLVING) {
-                    newImage(n);
-                }
+            if (!detailed && mode == LINE_SOLVING) {
+                newImage(n);
             }
         }
 
@@ -319,20 +1077,39 @@ public class Main implements Runnable {
             if (found) {
                 newImage(n);
             }
-            cells.clear();
         }
 
-        @Override
-        public void onSuccess(Nonogram n) {
-            // TODO: remake
-            /*while (!cells.isEmpty()) {
-                newImage(new Nonogram(n, cells.remove()));
-            }*/
+        protected void newImage(Nonogram nonogram) {
+            if (pipeline == null) {
+                pipeline = new FramePipeline(nonogram, createRenderer(nonogram),
+                        this::writeImage, frameQueueSize, framePolicy, supportsRegions());
+            }
 
-            super.onSuccess(n);
+            pipeline.submit(nonogram);
+        }
+
+        protected FramePipeline.FrameRenderer createRenderer(Nonogram template) {
+            return FramePipeline.FrameRenderer.of(renderer, squareSize);
         }
 
-        protected abstract void newImage(Nonogram nonogram);
+        /**
+         * @return true if {@link #writeImage(BufferedImage, int, int)} accepts images
+         * covering only the cells which changed since the previous image
+         */
+        protected abstract boolean supportsRegions();
+
+        protected abstract void writeImage(BufferedImage image, int x, int y) throws IOException;
+
+        /**
+         * Waits for the remaining frames
+         */
+        @Override
+        public void close() throws IOException {
+            if (pipeline != null) {
+                pipeline.close();
+                pipeline = null;
+            }
+        }
     }
 
 
@@ -354,14 +1131,13 @@ public class Main implements Runnable {
         }
 
         @Override
-        protected void newImage(Nonogram nonogram) {
-            LOGGER.debug("Writing...");
-            try {
-                ImageIO.write(renderer.asImage(nonogram, squareSize), "png", nextFile());
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-            LOGGER.debug("Done!");
+        protected boolean supportsRegions() {
+            return false;
+        }
+
+        @Override
+        protected void writeImage(BufferedImage image, int x, int y) throws IOException {
+            ImageIO.write(image, "png", nextFile());
         }
 
 
@@ -370,11 +1146,6 @@ public class Main implements Runnable {
 
             return outputFolder.resolve(baseFileName + "_" + i + ".png").toFile();
         }
-
-        @Override
-        public void close() {
-
-        }
     }
 
     private class GifOutput extends MultipleOutput implements Closeable {
@@ -400,19 +1171,34 @@ public class Main implements Runnable {
                     false);
         }
 
+        /**
+         * The gif encoder writes indexed images as they are, without quantizing them
+         */
         @Override
-        protected void newImage(Nonogram nonogram) {
-            LOGGER.debug("Writing...");
-            try {
-                writer.writeToSequence(renderer.asImage(nonogram, squareSize));
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-            LOGGER.debug("Done!");
+        protected FramePipeline.FrameRenderer createRenderer(Nonogram template) {
+            return new IndexedNonogramRenderer(template, renderer, squareSize);
+        }
+
+        @Override
+        protected boolean supportsRegions() {
+            return true;
+        }
+
+        @Override
+        protected void writeImage(BufferedImage image, int x, int y) throws IOException {
+            writer.writeToSequence(image, x, y);
         }
 
         @Override
         public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                closeWriter();
+            }
+        }
+
+        private void closeWriter() throws IOException {
             if (writer != null) {
                 writer.close();
                 writer = null;
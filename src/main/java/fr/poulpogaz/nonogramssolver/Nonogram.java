@@ -13,7 +13,7 @@ public class Nonogram {
     private final Clue[][] columns;
     private final Clue[][] rows;
 
-    private final Cell[][] cells;
+    private final Grid grid;
 
     private final Color[] colors;
     private final Color background;
@@ -25,47 +25,73 @@ public class Nonogram {
         this.columns = columns;
         this.colors = colors;
         this.background = background;
-        this.cells = new Cell[height][width];
+        this.grid = new Grid(width, height);
+    }
 
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                cells[y][x] = new Cell();
-            }
-        }
+    /**
+     * Creates a copy of the nonogram. Clues and colors are shared with the original
+     */
+    public Nonogram(Nonogram nonogram) {
+        this(nonogram.rows, nonogram.columns, nonogram.colors, nonogram.background);
+        grid.restore(nonogram.grid.copy());
     }
 
-    public Cell[][] getCells() {
-        return cells;
+    public Grid getGrid() {
+        return grid;
     }
 
-    public Cell[][] getCellsCopy() {
+    /**
+     * @return a copy of all cells
+     */
+    public Cell[][] getCells() {
         Cell[][] cells = new Cell[height][width];
 
         for (int y = 0; y < height; y++) {
-            cells[y] = Arrays.copyOf(this.cells[y], width);
+            for (int x = 0; x < width; x++) {
+                cells[y][x] = grid.getCell(x, y);
+            }
         }
 
         return cells;
     }
 
+    public Cell[][] getCellsCopy() {
+        return getCells();
+    }
+
+    /**
+     * @return a copy of the cell at (x, y)
+     */
     public Cell get(int x, int y) {
-        return cells[y][x];
+        return grid.getCell(x, y);
+    }
+
+    public void set(int x, int y, int type, int color) {
+        grid.set(x, y, type, color);
+    }
+
+    public void set(int x, int y, Cell cell) {
+        grid.set(x, y, cell);
+    }
+
+    public int getColor(int x, int y) {
+        return grid.getColor(x, y);
     }
 
     public boolean isEmpty(int x, int y) {
-        return cells[y][x].isEmpty();
+        return grid.isEmpty(x, y);
     }
 
     public boolean isFilled(int x, int y) {
-        return cells[y][x].isFilled();
+        return grid.isFilled(x, y);
     }
 
     public boolean isFilled(int x, int y, int color) {
-        return cells[y][x].isFilled(color);
+        return grid.isFilled(x, y, color);
     }
 
     public boolean isCrossed(int x, int y) {
-        return cells[y][x].isCrossed();
+        return grid.isCrossed(x, y);
     }
 
     public int getWidth() {
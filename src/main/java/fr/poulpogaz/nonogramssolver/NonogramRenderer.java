@@ -39,6 +39,73 @@ public class NonogramRenderer {
         return image;
     }
 
+    /**
+     * Renders the part of {@link #asImage(Nonogram, int)} covering the given cells.
+     * The region is one pixel larger on each side because lines of a cell are drawn
+     * on the first pixel of the next one. The position of the region in the
+     * full image is given by {@link #regionOf(Nonogram, int, Rectangle)}.
+     *
+     * @param cells the cells to render, in cell coordinates
+     */
+    public BufferedImage asImage(Nonogram n, int squareSize, Rectangle cells) {
+        NonogramDimension dim = imageDimensionFor(n, squareSize);
+        Rectangle region = regionOf(dim, cells);
+
+        BufferedImage image = new BufferedImage(region.width, region.height, BufferedImage.TYPE_INT_RGB);
+
+        Graphics2D g2d = image.createGraphics();
+        try {
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+            g2d.translate(-region.x, -region.y);
+            g2d.clipRect(region.x, region.y, region.width, region.height);
+
+            g2d.setColor(Color.WHITE);
+            g2d.fillRect(region.x, region.y, region.width, region.height);
+
+            // the region touches the clues when it contains the first row or the first column
+            Font oldFont = g2d.getFont();
+            g2d.setFont(g2d.getFont().deriveFont((float) dim.squareSize / dim.maxDigit));
+            if (dim.rowWidth > 0 && dim.colHeight > 0 &&
+                    (region.x < dim.gridOffsetX() || region.y < dim.gridOffsetY())) {
+                drawColumnsClues(g2d, n, dim.gridOffsetX(), dim.gridOffsetY(), dim.squareSize);
+                drawRowsClues(g2d, n, dim.gridOffsetY(), dim.gridOffsetX(), dim.squareSize);
+            }
+
+            // neighbours may draw on the border of the region
+            drawNonogram(g2d, n, dim.gridOffsetX(), dim.gridOffsetY(), dim.squareSize,
+                    Math.max(cells.x - 1, 0),
+                    Math.max(cells.y - 1, 0),
+                    Math.min(cells.x + cells.width + 1, n.getWidth()),
+                    Math.min(cells.y + cells.height + 1, n.getHeight()));
+            drawGrid(g2d, n, dim);
+
+            g2d.setFont(oldFont);
+        } finally {
+            g2d.dispose();
+        }
+
+        return image;
+    }
+
+    /**
+     * @param cells cells in cell coordinates
+     * @return the region in pixels rendered by {@link #asImage(Nonogram, int, Rectangle)}
+     */
+    public Rectangle regionOf(Nonogram n, int squareSize, Rectangle cells) {
+        return regionOf(imageDimensionFor(n, squareSize), cells);
+    }
+
+    private Rectangle regionOf(NonogramDimension dim, Rectangle cells) {
+        int x = dim.gridOffsetX() + cells.x * dim.squareSize - 1;
+        int y = dim.gridOffsetY() + cells.y * dim.squareSize - 1;
+        Rectangle region = new Rectangle(x, y, cells.width * dim.squareSize + 2, cells.height * dim.squareSize + 2);
+
+        return region.intersection(new Rectangle(0, 0, dim.imageWidth, dim.imageHeight));
+    }
+
     public void drawNonogram(Nonogram n, Graphics2D g2d, int width, int height) {
         drawNonogram(g2d, n, imageDimensionFor(n, bestSquareSizeFor(n, width, height)));
     }
@@ -124,6 +191,14 @@ public class NonogramRenderer {
 
 
     private void drawNonogram(Graphics2D g2d, Nonogram n, int offsetX, int offsetY, int squareSize) {
+        drawNonogram(g2d, n, offsetX, offsetY, squareSize, 0, 0, n.getWidth(), n.getHeight());
+    }
+
+    /**
+     * Draws the cells between (minX, minY) inclusive and (maxX, maxY) exclusive
+     */
+    private void drawNonogram(Graphics2D g2d, Nonogram n, int offsetX, int offsetY, int squareSize,
+                              int minX, int minY, int maxX, int maxY) {
         Color[] colors = n.getColors();
 
         Color cross;
@@ -134,21 +209,19 @@ public class NonogramRenderer {
         }
 
         int drawX;
-        int drawY = offsetY;
-        for (int y = 0; y < n.getHeight(); y++) {
+        int drawY = offsetY + minY * squareSize;
+        for (int y = minY; y < maxY; y++) {
 
-            drawX = offsetX;
-            for (int x = 0; x < n.getWidth(); x++) {
-                Cell cell = n.get(x, y);
-
-                if (cell.isFilled()) {
-                    g2d.setColor(colors[cell.getColor()]);
+            drawX = offsetX + minX * squareSize;
+            for (int x = minX; x < maxX; x++) {
+                if (n.isFilled(x, y)) {
+                    g2d.setColor(colors[n.getColor(x, y)]);
                     g2d.fillRect(drawX, drawY, squareSize, squareSize);
-                } else if (cell.isEmpty()) {
+                } else if (n.isEmpty(x, y)) {
                     //g2d.setColor(n.getBackground());
                     g2d.setColor(Color.WHITE);
                     g2d.fillRect(drawX, drawY, squareSize, squareSize);
-                } else if (cell.isCrossed() && squareSize >= 3) {
+                } else if (n.isCrossed(x, y) && squareSize >= 3) {
                     g2d.setColor(n.getBackground());
                     g2d.fillRect(drawX, drawY, squareSize, squareSize);
 
@@ -199,7 +272,8 @@ public class NonogramRenderer {
 
         String str = Integer.toString(clue.length());
 
-        g2d.setClip(x, y, squareSize, squareSize);
+        Shape oldClip = g2d.getClip();
+        g2d.clipRect(x, y, squareSize, squareSize);
 
         Color background = n.getColors()[clue.color()];
 
@@ -219,6 +293,8 @@ public class NonogramRenderer {
         g2d.drawString(str,
                 x + (squareSize - fm.stringWidth(str)) / 2,
                 y + (squareSize - fm.getHeight()) / 2 + fm.getAscent());
+
+        g2d.setClip(oldClip);
     }
 
     private void drawGrid(Graphics2D g2d, Nonogram n, NonogramDimension dim) {
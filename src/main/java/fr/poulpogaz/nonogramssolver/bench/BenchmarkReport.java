@@ -0,0 +1,132 @@
+package fr.poulpogaz.nonogramssolver.bench;
+
+import fr.poulpogaz.nonogramssolver.utils.Json;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Results of a {@link SolverBenchmark}, written and read in json.
+ * Times are in nanoseconds.
+ *
+ * @param solver description of the solver configuration
+ * @param warmup number of warm-up iterations per puzzle
+ * @param iterations number of measured iterations per puzzle
+ * @param results results of each puzzle. Two results can't have the same name
+ */
+public record BenchmarkReport(String solver, int warmup, int iterations, List<Result> results) {
+
+    public BenchmarkReport {
+        results = List.copyOf(results);
+
+        Set<String> names = new HashSet<>();
+        for (Result r : results) {
+            if (!names.add(r.name())) {
+                throw new IllegalArgumentException("Duplicate result: " + r.name());
+            }
+        }
+    }
+
+    /**
+     * @return the result of the puzzle or null
+     */
+    public Result get(String name) {
+        for (Result r : results) {
+            if (r.name().equals(name)) {
+                return r;
+            }
+        }
+
+        return null;
+    }
+
+    public String toJSON() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"solver\": ").append(Json.quote(solver)).append(",\n");
+        sb.append("  \"warmup\": ").append(warmup).append(",\n");
+        sb.append("  \"iterations\": ").append(iterations).append(",\n");
+        sb.append("  \"results\": [");
+
+        for (int i = 0; i < results.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("\n    ").append(results.get(i).toJSON());
+        }
+
+        sb.append("\n  ]\n}\n");
+        return sb.toString();
+    }
+
+    public void write(Path path) throws IOException {
+        Files.writeString(path, toJSON());
+    }
+
+    public static BenchmarkReport read(Path path) throws IOException {
+        try {
+            return fromJSON(Json.parse(Files.readString(path)));
+        } catch (IllegalArgumentException | ClassCastException | NullPointerException e) {
+            throw new IOException("Invalid report " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static BenchmarkReport fromJSON(Object json) {
+        Map<?, ?> object = (Map<?, ?>) json;
+
+        List<Result> results = new ArrayList<>();
+        for (Object r : (List<?>) object.get("results")) {
+            results.add(Result.fromJSON((Map<?, ?>) r));
+        }
+
+        return new BenchmarkReport((String) object.get("solver"),
+                getInt(object, "warmup"), getInt(object, "iterations"), results);
+    }
+
+    private static long getLong(Map<?, ?> object, String key) {
+        return ((Number) object.get(key)).longValue();
+    }
+
+    private static int getInt(Map<?, ?> object, String key) {
+        return ((Number) object.get(key)).intValue();
+    }
+
+    /**
+     * Result of one puzzle. The total time is the time taken by
+     * {@link fr.poulpogaz.nonogramssolver.solver.NonogramSolver#solve}, phases are averaged over the iterations.
+     */
+    public record Result(String name, int width, int height, boolean solved,
+                         long minTime, long medianTime, long maxTime, long meanTime,
+                         long lineSolvingTime, long contradictionTime, long recursionTime,
+                         long guesses, long probes) {
+
+        String toJSON() {
+            return String.format(Locale.ROOT,
+                    "{\"name\": %s, \"width\": %d, \"height\": %d, \"solved\": %b, " +
+                            "\"min_ns\": %d, \"median_ns\": %d, \"max_ns\": %d, \"mean_ns\": %d, " +
+                            "\"line_solving_ns\": %d, \"contradiction_ns\": %d, \"recursion_ns\": %d, " +
+                            "\"guesses\": %d, \"probes\": %d}",
+                    Json.quote(name), width, height, solved,
+                    minTime, medianTime, maxTime, meanTime,
+                    lineSolvingTime, contradictionTime, recursionTime,
+                    guesses, probes);
+        }
+
+        static Result fromJSON(Map<?, ?> object) {
+            return new Result((String) object.get("name"),
+                    getInt(object, "width"), getInt(object, "height"), (Boolean) object.get("solved"),
+                    getLong(object, "min_ns"), getLong(object, "median_ns"),
+                    getLong(object, "max_ns"), getLong(object, "mean_ns"),
+                    getLong(object, "line_solving_ns"), getLong(object, "contradiction_ns"),
+                    getLong(object, "recursion_ns"),
+                    getLong(object, "guesses"), getLong(object, "probes"));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package fr.poulpogaz.nonogramssolver.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the median time of each puzzle of two reports.
+ * A puzzle is a regression if its median time increased by more than the threshold
+ * or if it isn't solved anymore.
+ */
+public class ReportComparison {
+
+    public enum Status {
+        UNCHANGED,
+        IMPROVEMENT,
+        REGRESSION,
+
+        /**
+         * The puzzle is in the baseline but not in the current report
+         */
+        MISSING
+    }
+
+    /**
+     * @param ratio current median time divided by the baseline median time, NaN if the puzzle is missing
+     */
+    public record Difference(String name, long baselineTime, long currentTime, double ratio, Status status) {}
+
+    private final List<Difference> differences;
+
+    /**
+     * @param threshold relative change of the median time, for example 0.1 for 10%
+     */
+    public ReportComparison(BenchmarkReport baseline, BenchmarkReport current, double threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Threshold must be positive");
+        }
+
+        differences = new ArrayList<>();
+        for (BenchmarkReport.Result old : baseline.results()) {
+            BenchmarkReport.Result now = current.get(old.name());
+
+            if (now == null) {
+                differences.add(new Difference(old.name(), old.medianTime(), -1, Double.NaN, Status.MISSING));
+                continue;
+            }
+
+            double ratio = (double) now.medianTime() / Math.max(1, old.medianTime());
+
+            Status status;
+            if (old.solved() && !now.solved() || ratio > 1 + threshold) {
+                status = Status.REGRESSION;
+            } else if (ratio < 1 - threshold) {
+                status = Status.IMPROVEMENT;
+            } else {
+                status = Status.UNCHANGED;
+            }
+
+            differences.add(new Difference(old.name(), old.medianTime(), now.medianTime(), ratio, status));
+        }
+    }
+
+    public List<Difference> getDifferences() {
+        return differences;
+    }
+
+    public long count(Status status) {
+        return differences.stream().filter(d -> d.status() == status).count();
+    }
+
+    public boolean hasRegression() {
+        return count(Status.REGRESSION) > 0;
+    }
+}
@@ -0,0 +1,84 @@
+package fr.poulpogaz.nonogramssolver.bench;
+
+import fr.poulpogaz.nonogramssolver.Nonogram;
+import fr.poulpogaz.nonogramssolver.solver.NonogramSolver;
+import fr.poulpogaz.nonogramssolver.solver.SolverListener;
+import fr.poulpogaz.nonogramssolver.solver.SolverStats;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+
+/**
+ * Measures the time taken by {@link NonogramSolver#solve} on a puzzle.
+ * Each iteration solves a copy of the puzzle. Warm-up iterations aren't measured.
+ */
+public class SolverBenchmark {
+
+    private static final Logger LOGGER = LogManager.getLogger(SolverBenchmark.class);
+
+    private final NonogramSolver solver;
+    private final int warmup;
+    private final int iterations;
+    private final boolean contradiction;
+    private final boolean recursive;
+
+    public SolverBenchmark(NonogramSolver solver, int warmup, int iterations, boolean contradiction, boolean recursive) {
+        if (warmup < 0) {
+            throw new IllegalArgumentException("Number of warm-up iterations must be positive or zero");
+        }
+        if (iterations <= 0) {
+            throw new IllegalArgumentException("Number of iterations must be positive");
+        }
+
+        this.solver = solver;
+        this.warmup = warmup;
+        this.iterations = iterations;
+        this.contradiction = contradiction;
+        this.recursive = recursive;
+    }
+
+    public BenchmarkReport.Result run(String name, Nonogram nonogram) {
+        for (int i = 0; i < warmup; i++) {
+            solver.solve(new Nonogram(nonogram), SolverListener.EMPTY_LISTENER, contradiction, recursive);
+        }
+
+        long[] times = new long[iterations];
+        long lineSolving = 0;
+        long contradiction = 0;
+        long recursion = 0;
+        boolean solved = true;
+
+        for (int i = 0; i < iterations; i++) {
+            Nonogram copy = new Nonogram(nonogram);
+
+            long start = System.nanoTime();
+            SolverStats stats = solver.solve(copy, SolverListener.EMPTY_LISTENER, this.contradiction, recursive);
+            times[i] = System.nanoTime() - start;
+
+            solved &= stats.isSolved();
+            lineSolving += stats.getLineSolvingTime();
+            contradiction += stats.getContradictionTime();
+            recursion += stats.getRecursionTime();
+        }
+
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        long mean = Arrays.stream(times).sum() / iterations;
+
+        LOGGER.debug("{}: median {} ns", name, sorted[iterations / 2]);
+
+        return new BenchmarkReport.Result(name, nonogram.getWidth(), nonogram.getHeight(), solved,
+                sorted[0], sorted[iterations / 2], sorted[iterations - 1], mean,
+                lineSolving / iterations, contradiction / iterations, recursion / iterations,
+                solver.getStats().getGuesses(), solver.getStats().getProbes());
+    }
+
+    public int getWarmup() {
+        return warmup;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+}
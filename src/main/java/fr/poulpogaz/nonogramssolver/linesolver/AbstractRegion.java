@@ -5,9 +5,6 @@ import fr.poulpogaz.nonogramssolver.solver.CellWrapper;
 import fr.poulpogaz.nonogramssolver.solver.Clue;
 import fr.poulpogaz.nonogramssolver.solver.Description;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * A region is a part of a column/row that contains cell that shares the same possibilities
  */
@@ -25,6 +22,11 @@ public abstract class AbstractRegion {
     // excluded
     protected int lastClueIndex;
 
+    /**
+     * Filled lines of the region, reused by {@link #createLines()}
+     */
+    protected final Lines lines = new Lines();
+
     public AbstractRegion(Description description) {
         this.description = description;
     }
@@ -35,7 +37,7 @@ public abstract class AbstractRegion {
             return;
         }
 
-        List<Line> lines = createLines();
+        Lines lines = createLines();
 
         computePossibilities();
         optimizeCluesBoundWithOnePossibility();
@@ -47,8 +49,8 @@ public abstract class AbstractRegion {
         }
     }
 
-    protected List<Line> createLines() {
-        List<Line> lines = new ArrayList<>();
+    protected Lines createLines() {
+        lines.clear();
 
         int length = 0;
         int color = 0;
@@ -61,7 +63,7 @@ public abstract class AbstractRegion {
             } else if (isFilled(i, color)) {
                 length++;
             } else {
-                lines.add(new Line(i - length, i, color));
+                lines.add(i - length, i, color);
                 length = 0;
             }
         }
@@ -232,17 +234,17 @@ public abstract class AbstractRegion {
      *
      * TODO: optimize this function, avoid using {@link #recalculateMinIMaxI()}
      */
-    protected void comparePossibilitiesAndLines(List<Line> lines) {
+    protected void comparePossibilitiesAndLines(Lines lines) {
         if (description.hasContradiction()) {
             return;
         }
 
-        for (Line line : lines) {
+        for (int i = 0; i < lines.size(); i++) {
             for (int j = firstClueIndex; j < lastClueIndex; j++) {
                 Clue clue = getClue(j);
 
-                if (clue.getColor() != line.color()) {
-                    for (int k = line.start(); k < line.end(); k++) {
+                if (clue.getColor() != lines.color(i)) {
+                    for (int k = lines.start(i); k < lines.end(i); k++) {
                         setPossibility(k, clue, false);
                     }
                 }
@@ -251,17 +253,16 @@ public abstract class AbstractRegion {
         recalculateMinIMaxI();
 
         for (int i = 0; i < lines.size(); i++) {
-            Line line = lines.get(i);
-            Clue firstClue = firstPossibility(line.start());
+            Clue firstClue = firstPossibility(lines.start(i));
 
             if (firstClue == null) {
                 continue;
             }
 
-            int max = Math.min(Math.min(line.start() + firstClue.getLength(), end), firstClue.getMaxI());
+            int max = Math.min(Math.min(lines.start(i) + firstClue.getLength(), end), firstClue.getMaxI());
             firstClue.setMaxI(max);
 
-            for (int j = line.end(); j < firstClue.getMaxI(); j++) {
+            for (int j = lines.end(i); j < firstClue.getMaxI(); j++) {
                 if (isCrossed(j) || !isPossible(j, firstClue)) {
                     firstClue.setMaxI(j);
                 }
@@ -278,17 +279,15 @@ public abstract class AbstractRegion {
 
         // reverse
         for (int i = lines.size() - 1; i >= 0; i--) {
-            Line line = lines.get(i);
-
-            Clue lastClue = lastPossibility(line.start());
+            Clue lastClue = lastPossibility(lines.start(i));
 
             if (lastClue == null) {
                 continue;
             }
 
-            int min = Math.max(Math.max(line.end() - lastClue.getLength(), start), lastClue.getMinI());
+            int min = Math.max(Math.max(lines.end(i) - lastClue.getLength(), start), lastClue.getMinI());
             lastClue.setMinI(min);
-            for (int j = line.start() - 1; j >= lastClue.getMinI(); j--) {
+            for (int j = lines.start(i) - 1; j >= lastClue.getMinI(); j--) {
                 if (isCrossed(j) || !isPossible(j, lastClue)) {
                     lastClue.setMinI(j + 1);
                 }
@@ -319,7 +318,7 @@ public abstract class AbstractRegion {
         }
     }
 
-    protected void tryFill(List<Line> lines) {
+    protected void tryFill(Lines lines) {
         // simple space method
         for (int i = firstClueIndex; i < lastClueIndex; i++) {
             Clue clue = getClue(i);
@@ -332,8 +331,10 @@ public abstract class AbstractRegion {
         // and we try to draw a line between the minimum and maximum possible
         // of length l
         // see TurtleBug 1 and 3
-        for (Line line : lines) {
-            int minLength = minClueLength(line.start());
+        for (int l = 0; l < lines.size(); l++) {
+            int lineStart = lines.start(l);
+            int lineEnd = lines.end(l);
+            int minLength = minClueLength(lineStart);
 
             if (minLength < 0) {
                 description.setContradiction();
@@ -341,20 +342,20 @@ public abstract class AbstractRegion {
             }
 
             // inclusive
-            int minPossible = line.start();
+            int minPossible = lineStart;
             // inclusive...
-            int maxPossible = line.end() - 1;
+            int maxPossible = lineEnd - 1;
 
-            for (int i = line.start() - 1; i >= start; i--) {
-                if (line.end() - i <= minLength && !isCrossed(i)) {
+            for (int i = lineStart - 1; i >= start; i--) {
+                if (lineEnd - i <= minLength && !isCrossed(i)) {
                     minPossible = i;
                 } else {
                     break;
                 }
             }
 
-            for (int i = line.end(); i < end; i++) {
-                if (i - line.start() <= minLength && !isCrossed(i)) {
+            for (int i = lineEnd; i < end; i++) {
+                if (i - lineStart <= minLength && !isCrossed(i)) {
                     maxPossible = i;
                 } else {
                     break;
@@ -362,7 +363,7 @@ public abstract class AbstractRegion {
 
             }
 
-            drawBetween(minPossible, maxPossible + 1, minLength, line.color());
+            drawBetween(minPossible, maxPossible + 1, minLength, lines.color(l));
         }
     }
 
@@ -588,7 +589,7 @@ public abstract class AbstractRegion {
     }
 
     protected int getColor(int index) {
-        return description.getCell(index).get().getColor();
+        return description.getColor(index);
     }
 
     protected void setCell(int index, int type) {
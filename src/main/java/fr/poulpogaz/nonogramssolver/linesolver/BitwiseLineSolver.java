@@ -0,0 +1,320 @@
+package fr.poulpogaz.nonogramssolver.linesolver;
+
+import fr.poulpogaz.nonogramssolver.Cell;
+import fr.poulpogaz.nonogramssolver.solver.Clue;
+import fr.poulpogaz.nonogramssolver.solver.Description;
+
+import java.util.Objects;
+
+/**
+ * A line solver for lines of at most 64 cells whose clues share the same color.
+ * The filled and crossed cells of the line are stored in two {@code long}: bit i is cell i.
+ * For each clue, the set of valid positions is computed with shifts and masks: positions reachable
+ * from the left side of the line ({@link #forward(int[], int, long, long, int, long[])}) and from the
+ * right side (the same method applied on the reversed line). Their intersection gives the leftmost and
+ * the rightmost placement of each clue. A cell is filled if it can't be part of a gap between two clues
+ * and crossed if it isn't covered by any clue.
+ * <br>
+ * Other lines are given to a fallback solver, by default {@link DefaultLineSolver}.
+ */
+public class BitwiseLineSolver implements LineSolver {
+
+    public static final int MAX_SIZE = 64;
+
+    private final LineSolver fallback;
+
+    private int[] lengths = new int[0];
+    private int[] reversedLengths = new int[0];
+
+    /**
+     * starting positions of each clue that are reachable from the left
+     */
+    private long[] forward = new long[0];
+
+    /**
+     * starting positions of each clue that are reachable from the right.
+     * First, they are expressed in the reversed line.
+     */
+    private long[] backward = new long[0];
+
+    public BitwiseLineSolver() {
+        this(new DefaultLineSolver());
+    }
+
+    public BitwiseLineSolver(LineSolver fallback) {
+        this.fallback = Objects.requireNonNull(fallback);
+    }
+
+    @Override
+    public void trySolve(Description description) {
+        if (!canSolve(description)) {
+            fallback.trySolve(description);
+            return;
+        }
+
+        if (!description.hasChanged()) {
+            return;
+        }
+        description.resetStatus();
+        for (int i = 0; i < description.size(); i++) {
+            description.getCell(i).resetStatus();
+        }
+
+        int n = description.size();
+        int color = description.nClues() > 0 ? description.getClue(0).getColor() : 0;
+
+        long filled = 0;
+        long crossed = 0;
+        for (int i = 0; i < n; i++) {
+            if (description.isFilled(i)) {
+                if (!description.isFilled(i, color)) {
+                    description.setContradiction();
+                    return;
+                }
+
+                filled |= 1L << i;
+            } else if (description.isCrossed(i)) {
+                crossed |= 1L << i;
+            }
+        }
+
+        long all = mask(n);
+        long canBeFilled;
+        long canBeEmpty;
+
+        if (description.nClues() == 0) {
+            canBeFilled = 0;
+            canBeEmpty = all;
+        } else {
+            setLengths(description);
+
+            int k = description.nClues();
+            if (!forward(lengths, k, filled, crossed, n, forward) ||
+                    !forward(reversedLengths, k, reverse(filled, n), reverse(crossed, n), n, backward)) {
+                description.setContradiction();
+                return;
+            }
+
+            for (int i = 0; i < k / 2; i++) {
+                long temp = backward[i];
+                backward[i] = backward[k - 1 - i];
+                backward[k - 1 - i] = temp;
+            }
+
+            for (int i = 0; i < k; i++) {
+                backward[i] = Long.reverse(backward[i]) >>> (63 - n + lengths[i]);
+            }
+
+            canBeFilled = 0;
+            for (int i = 0; i < k; i++) {
+                long valid = forward[i] & backward[i];
+
+                if (valid == 0) {
+                    description.setContradiction();
+                    return;
+                }
+
+                Clue clue = description.getClue(i);
+                clue.setMinI(Long.numberOfTrailingZeros(valid));
+                clue.setMaxI(63 - Long.numberOfLeadingZeros(valid) + lengths[i]);
+
+                canBeFilled |= cover(valid, lengths[i]);
+            }
+
+            long notFilled = ~filled & all;
+
+            // before the first clue, between clues and after the last clue
+            canBeEmpty = gap(1L, backward[0] >>> 1, notFilled);
+            for (int i = 0; i + 1 < k; i++) {
+                canBeEmpty |= gap(shiftLeft(forward[i], lengths[i]), backward[i + 1] >>> 1, notFilled);
+            }
+            canBeEmpty |= gap(shiftLeft(forward[k - 1], lengths[k - 1]), 1L << (n - 1), notFilled);
+        }
+
+        if (((canBeFilled | canBeEmpty) & all) != all) {
+            description.setContradiction();
+            return;
+        }
+
+        long toFill = canBeFilled & ~canBeEmpty & ~filled;
+        while (toFill != 0) {
+            description.setCell(Long.numberOfTrailingZeros(toFill), Cell.FILLED, color);
+            toFill &= toFill - 1;
+        }
+
+        long toCross = canBeEmpty & ~canBeFilled & ~crossed;
+        while (toCross != 0) {
+            description.setCell(Long.numberOfTrailingZeros(toCross), Cell.CROSSED);
+            toCross &= toCross - 1;
+        }
+    }
+
+    /**
+     * @return true if the line has at most 64 cells and all clues have the same color
+     */
+    public boolean canSolve(Description description) {
+        if (description.size() > MAX_SIZE) {
+            return false;
+        }
+
+        for (int i = 1; i < description.nClues(); i++) {
+            if (description.getClue(i).getColor() != description.getClue(0).getColor()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void setLengths(Description description) {
+        int k = description.nClues();
+
+        if (lengths.length < k) {
+            lengths = new int[k];
+            reversedLengths = new int[k];
+            forward = new long[k];
+            backward = new long[k];
+        }
+
+        for (int i = 0; i < k; i++) {
+            lengths[i] = description.getClueLength(i);
+            reversedLengths[k - 1 - i] = lengths[i];
+        }
+    }
+
+    /**
+     * Computes for each clue the starting positions such that all previous clues
+     * can be placed before without contradiction.
+     *
+     * @param lengths clues' length
+     * @param k number of clues
+     * @param filled filled cells
+     * @param crossed crossed cells
+     * @param n line size
+     * @param out where starting positions are stored
+     * @return false if a clue can't be placed
+     */
+    private static boolean forward(int[] lengths, int k, long filled, long crossed, int n, long[] out) {
+        long all = mask(n);
+        long notFilled = ~filled & all;
+        long notCrossed = ~crossed & all;
+
+        long start = 1L;
+        for (int i = 0; i < k; i++) {
+            int length = lengths[i];
+
+            // all cells between the previous clue and this one must be empty
+            long positions = fillRight(start, notFilled) & all;
+
+            // the clue can't overlap a crossed cell and can't be adjacent to a filled cell
+            positions &= runs(notCrossed, length);
+            positions &= ~shiftLeft(filled, 1);
+            positions &= ~shiftRight(filled, length);
+
+            if (positions == 0) {
+                return false;
+            }
+
+            out[i] = positions;
+            start = shiftLeft(positions, length + 1);
+        }
+
+        return true;
+    }
+
+    /**
+     * Computes cells that can be empty between a clue ending at a position of {@code firstCells}
+     * (exclusive) and a clue starting right after a position of {@code lastCells}
+     */
+    private static long gap(long firstCells, long lastCells, long notFilled) {
+        long left = fillRight(firstCells & notFilled, notFilled);
+        long right = fillLeft(lastCells & notFilled, notFilled);
+
+        return left & right & notFilled;
+    }
+
+    /**
+     * @return positions p such that bits from p (inclusive) to p + length (exclusive) are set
+     */
+    private static long runs(long bits, int length) {
+        int l = 1;
+        while (l < length) {
+            int s = Math.min(l, length - l);
+            bits &= bits >>> s;
+            l += s;
+        }
+
+        return bits;
+    }
+
+    /**
+     * @return bits set from each position of {@code positions} to position + length (exclusive)
+     */
+    private static long cover(long positions, int length) {
+        int l = 1;
+        while (l < length) {
+            int s = Math.min(l, length - l);
+            positions |= positions << s;
+            l += s;
+        }
+
+        return positions;
+    }
+
+    /**
+     * Moves bits to the left (higher indices) as long as they are on a set bit of {@code propagator}
+     */
+    private static long fillRight(long bits, long propagator) {
+        bits |= (bits & propagator) << 1;
+        propagator &= propagator >>> 1;
+        bits |= (bits & propagator) << 2;
+        propagator &= propagator >>> 2;
+        bits |= (bits & propagator) << 4;
+        propagator &= propagator >>> 4;
+        bits |= (bits & propagator) << 8;
+        propagator &= propagator >>> 8;
+        bits |= (bits & propagator) << 16;
+        propagator &= propagator >>> 16;
+        bits |= (bits & propagator) << 32;
+
+        return bits;
+    }
+
+    /**
+     * Moves bits to the right (lower indices) as long as the destination is on a set bit of {@code propagator}
+     */
+    private static long fillLeft(long bits, long propagator) {
+        bits |= (bits >>> 1) & propagator;
+        propagator &= propagator >>> 1;
+        bits |= (bits >>> 2) & propagator;
+        propagator &= propagator >>> 2;
+        bits |= (bits >>> 4) & propagator;
+        propagator &= propagator >>> 4;
+        bits |= (bits >>> 8) & propagator;
+        propagator &= propagator >>> 8;
+        bits |= (bits >>> 16) & propagator;
+        propagator &= propagator >>> 16;
+        bits |= (bits >>> 32) & propagator;
+
+        return bits;
+    }
+
+    private static long shiftLeft(long bits, int shift) {
+        return shift >= 64 ? 0 : bits << shift;
+    }
+
+    private static long shiftRight(long bits, int shift) {
+        return shift >= 64 ? 0 : bits >>> shift;
+    }
+
+    /**
+     * Reverse the n first bits
+     */
+    private static long reverse(long bits, int n) {
+        return Long.reverse(bits) >>> (64 - n);
+    }
+
+    private static long mask(int n) {
+        return n == 64 ? -1L : (1L << n) - 1;
+    }
+}
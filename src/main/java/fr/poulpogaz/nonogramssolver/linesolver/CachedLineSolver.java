@@ -0,0 +1,183 @@
+package fr.poulpogaz.nonogramssolver.linesolver;
+
+import fr.poulpogaz.nonogramssolver.Cell;
+import fr.poulpogaz.nonogramssolver.Grid;
+import fr.poulpogaz.nonogramssolver.solver.Clue;
+import fr.poulpogaz.nonogramssolver.solver.Description;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A line solver that remembers the results of another line solver.
+ * Results are indexed by the clues and the state of the line, so two lines with the same clues
+ * and the same cells share their result. The least recently used results are removed when the cache is full.
+ */
+public class CachedLineSolver implements LineSolver {
+
+    public static final int DEFAULT_MAX_SIZE = 65536;
+
+    /**
+     * Value stored in the cache when the line solver found a contradiction
+     */
+    private static final int[] CONTRADICTION = new int[0];
+
+    private final LineSolver lineSolver;
+    private final LRUCache cache;
+
+    private long hits;
+    private long misses;
+
+    public CachedLineSolver(LineSolver lineSolver) {
+        this(lineSolver, DEFAULT_MAX_SIZE);
+    }
+
+    public CachedLineSolver(LineSolver lineSolver, int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+
+        this.lineSolver = Objects.requireNonNull(lineSolver);
+        this.cache = new LRUCache(maxSize);
+    }
+
+    @Override
+    public void trySolve(Description description) {
+        if (!description.hasChanged()) {
+            return;
+        }
+
+        Key key = new Key(encode(description, true));
+        int[] result = cache.get(key);
+
+        if (result == null) {
+            misses++;
+            lineSolver.trySolve(description);
+
+            if (description.hasContradiction()) {
+                cache.put(key, CONTRADICTION);
+            } else {
+                cache.put(key, encode(description, false));
+            }
+        } else {
+            hits++;
+            description.resetStatus();
+            for (int i = 0; i < description.size(); i++) {
+                description.getCell(i).resetStatus();
+            }
+
+            if (result == CONTRADICTION) {
+                description.setContradiction();
+            } else {
+                apply(description, result);
+            }
+        }
+    }
+
+    private void apply(Description description, int[] cells) {
+        for (int i = 0; i < description.size(); i++) {
+            if (description.isEmpty(i) && cells[i] != Cell.EMPTY) {
+                description.setCell(i, Grid.type(cells[i]), Grid.color(cells[i]));
+            }
+        }
+    }
+
+    public void clear() {
+        cache.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public int getMaxSize() {
+        return cache.maxSize;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public double getHitRate() {
+        long total = hits + misses;
+
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public LineSolver getLineSolver() {
+        return lineSolver;
+    }
+
+    /**
+     * A cell is encoded like in {@link Grid}.
+     * A clue is also encoded in an int: the 16 lowest bits are for the length, others for the color.
+     *
+     * @param withClues if true, the number of clues and the clues are encoded before the cells.
+     */
+    private static int[] encode(Description description, boolean withClues) {
+        int offset = withClues ? description.nClues() + 1 : 0;
+        int[] data = new int[offset + description.size()];
+
+        if (withClues) {
+            data[0] = description.nClues();
+
+            for (int i = 0; i < description.nClues(); i++) {
+                Clue clue = description.getClue(i);
+                data[i + 1] = clue.getColor() << 16 | clue.getLength();
+            }
+        }
+
+        for (int i = 0; i < description.size(); i++) {
+            data[offset + i] = Grid.pack(description.getType(i), description.getColor(i));
+        }
+
+        return data;
+    }
+
+    private static final class Key {
+
+        private final int[] data;
+        private final int hash;
+
+        public Key(int[] data) {
+            this.data = data;
+            this.hash = Arrays.hashCode(data);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+
+            return hash == key.hash && Arrays.equals(data, key.data);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static class LRUCache extends LinkedHashMap<Key, int[]> {
+
+        private final int maxSize;
+
+        public LRUCache(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, int[]> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
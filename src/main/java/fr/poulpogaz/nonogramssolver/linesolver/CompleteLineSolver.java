@@ -8,6 +8,7 @@ import java.util.Objects;
 
 /**
  * A solver that gets all information from a line.
+ * @deprecated all arrangements are enumerated, use {@link DynamicLineSolver}
  */
 @Deprecated
 public class CompleteLineSolver implements LineSolver {
@@ -10,10 +10,17 @@ import java.util.List;
 public class DefaultLineSolver extends AbstractRegion implements LineSolver {
 
     /**
-     * For each cell, contains an array of length the number of clue
-     * containing true if the i-th clue can be present at the cell
+     * For each cell, contains nClues booleans: true if the i-th clue
+     * can be present at the cell. Possibilities of cell c start at c * nClues
      */
-    private boolean[][] possibilities;
+    private boolean[] possibilities = new boolean[0];
+    private int nClues;
+
+    /**
+     * Regions returned by {@link #split()}. They are reused
+     */
+    private final List<Region> regions = new ArrayList<>();
+    private final List<Region> regionPool = new ArrayList<>();
 
     public DefaultLineSolver() {
         super(null);
@@ -38,7 +45,7 @@ public class DefaultLineSolver extends AbstractRegion implements LineSolver {
 
         computePossibilities();
         optimizeCluesBoundWithOnePossibility();
-        List<Line> lines = createLines();
+        Lines lines = createLines();
         comparePossibilitiesAndLines(lines);
 
         if (!description.hasContradiction()) {
@@ -47,8 +54,8 @@ public class DefaultLineSolver extends AbstractRegion implements LineSolver {
             List<Region> regions = split();
 
             if (regions.size() > 1) {
-                for (Region r : regions) {
-                    r.trySolve();
+                for (int i = 0; i < regions.size(); i++) {
+                    regions.get(i).trySolve();
                 }
             } else {
                 tryFill(lines);
@@ -59,10 +66,9 @@ public class DefaultLineSolver extends AbstractRegion implements LineSolver {
     protected void setDescriptor(Description description) {
         this.description = description;
 
-        if (possibilities == null ||
-                possibilities.length < description.size() ||
-                possibilities[0].length < description.nClues()) {
-            possibilities = new boolean[description.size()][description.nClues()];
+        nClues = description.nClues();
+        if (possibilities.length < description.size() * nClues) {
+            possibilities = new boolean[description.size() * nClues];
         }
 
         start = 0;
@@ -71,8 +77,11 @@ public class DefaultLineSolver extends AbstractRegion implements LineSolver {
         lastClueIndex = description.nClues();
     }
 
+    /**
+     * The returned list and the regions are reused by the next call
+     */
     protected List<Region> split() {
-        List<Region> regions = new ArrayList<>();
+        regions.clear();
 
         int firstClue = 0;
         for (int i = 0; i < description.nClues() - 1; i++) {
@@ -80,42 +89,53 @@ public class DefaultLineSolver extends AbstractRegion implements LineSolver {
             Clue next = getClue(i + 1);
 
             if (clue.getMaxI() <= next.getMinI()) { // no intersection => new region
-                Region r = new Region(this);
-                r.setFirstClueIndex(firstClue);
-                r.setLastClueIndex(i + 1);
-                r.setStart(getClue(firstClue).getMinI());
-                r.setEnd(clue.getMaxI());
-
-                regions.add(r);
+                newRegion(getClue(firstClue).getMinI(), clue.getMaxI(), firstClue, i + 1);
 
                 firstClue = i + 1;
             }
         }
 
         if (firstClue < description.nClues()) {
-            Region r = new Region(this);
-            r.setFirstClueIndex(firstClue);
-            r.setLastClueIndex(description.nClues());
-            r.setStart(getClue(firstClue).getMinI());
-            r.setEnd(getClue(description.nClues() - 1).getMaxI());
-
-            regions.add(r);
+            newRegion(getClue(firstClue).getMinI(), getClue(description.nClues() - 1).getMaxI(),
+                    firstClue, description.nClues());
         }
 
         return regions;
     }
 
+    private void newRegion(int start, int end, int firstClueIndex, int lastClueIndex) {
+        Region r;
+        if (regions.size() < regionPool.size()) {
+            r = regionPool.get(regions.size());
+        } else {
+            r = new Region(this);
+            regionPool.add(r);
+        }
+
+        r.set(start, end, firstClueIndex, lastClueIndex);
+        regions.add(r);
+    }
+
     @Override
     protected void setPossibility(int cell, int clueIndex, boolean possibility) {
-        possibilities[cell][clueIndex] = possibility;
+        possibilities[cell * nClues + clueIndex] = possibility;
     }
 
     @Override
     protected boolean isPossible(int cell, int clueIndex) {
-        return possibilities[cell][clueIndex];
+        return possibilities[cell * nClues + clueIndex];
     }
 
+    /**
+     * @return a copy of the possibilities as a 2D array: first index is the cell, the second is the clue
+     */
     public boolean[][] getPossibilities() {
+        boolean[][] possibilities = new boolean[description.size()][nClues];
+
+        for (int i = 0; i < description.size(); i++) {
+            System.arraycopy(this.possibilities, i * nClues, possibilities[i], 0, nClues);
+        }
+
         return possibilities;
     }
 }
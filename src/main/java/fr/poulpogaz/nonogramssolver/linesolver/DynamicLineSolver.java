@@ -0,0 +1,287 @@
+package fr.poulpogaz.nonogramssolver.linesolver;
+
+import fr.poulpogaz.nonogramssolver.Cell;
+import fr.poulpogaz.nonogramssolver.solver.Clue;
+import fr.poulpogaz.nonogramssolver.solver.Description;
+
+/**
+ * A solver that gets all information from a line, like {@link CompleteLineSolver}, in O(n * k) time
+ * where n is the size of the line and k the number of clues.
+ * <br>
+ * It computes two reachability tables:
+ * <ul>
+ *     <li>forward[i][j]: the i first clues can be placed in the cells from 0 (inclusive) to j (exclusive)</li>
+ *     <li>backward[i][j]: the clues from i (inclusive) to the last can be placed in the cells from j (inclusive) to the end</li>
+ * </ul>
+ * A clue can start at a cell if the previous clues can be placed before and the next clues after.
+ * A cell can be crossed if it separates a valid prefix from a valid suffix.
+ * Two consecutive clues of different colors don't need an empty cell between them.
+ */
+public class DynamicLineSolver implements LineSolver {
+
+    private static final int NO_COLOR = -1;
+    private static final int MULTIPLE_COLORS = -2;
+
+    private Description description;
+    private int size;
+    private int nClues;
+
+    // the line
+    private int[] types = new int[0];
+    private int[] colors = new int[0];
+
+    private boolean[][] forward = new boolean[0][0];
+    private boolean[][] backward = new boolean[0][0];
+
+    // result
+    private boolean[] canBeCrossed = new boolean[0];
+    private int[] possibleColor = new int[0];
+    private int[] coverage = new int[0];
+
+    @Override
+    public void trySolve(Description description) {
+        if (!description.hasChanged()) {
+            return;
+        }
+        description.resetStatus();
+        for (int i = 0; i < description.size(); i++) {
+            description.getCell(i).resetStatus();
+        }
+
+        setDescriptor(description);
+
+        computeForward();
+        if (!forward[nClues][size]) {
+            description.setContradiction();
+            this.description = null;
+            return;
+        }
+
+        computeBackward();
+        computeCrossedCells();
+        if (!computeFilledCells()) {
+            description.setContradiction();
+            this.description = null;
+            return;
+        }
+
+        for (int j = 0; j < size; j++) {
+            if (types[j] != Cell.EMPTY) {
+                continue;
+            }
+
+            if (possibleColor[j] == NO_COLOR) {
+                description.setCell(j, Cell.CROSSED);
+            } else if (!canBeCrossed[j] && possibleColor[j] != MULTIPLE_COLORS) {
+                description.setCell(j, Cell.FILLED, possibleColor[j]);
+            }
+        }
+
+        this.description = null;
+    }
+
+    protected void setDescriptor(Description description) {
+        this.description = description;
+        size = description.size();
+        nClues = description.nClues();
+
+        if (types.length < size) {
+            types = new int[size];
+            colors = new int[size];
+            canBeCrossed = new boolean[size];
+            possibleColor = new int[size];
+            coverage = new int[size + 1];
+        }
+
+        if (forward.length < nClues + 1 || forward[0].length < size + 1) {
+            int height = Math.max(forward.length, nClues + 1);
+            int width = Math.max(forward.length == 0 ? 0 : forward[0].length, size + 1);
+
+            forward = new boolean[height][width];
+            backward = new boolean[height][width];
+        }
+
+        for (int j = 0; j < size; j++) {
+            types[j] = description.getType(j);
+            colors[j] = description.getColor(j);
+        }
+    }
+
+    protected void computeForward() {
+        forward[0][0] = true;
+        for (int j = 1; j <= size; j++) {
+            forward[0][j] = forward[0][j - 1] && notFilled(j - 1);
+        }
+
+        for (int i = 1; i <= nClues; i++) {
+            Clue clue = description.getClue(i - 1);
+            int length = clue.getLength();
+            int color = clue.getColor();
+            boolean separated = i >= 2 && description.getClue(i - 2).getColor() == color;
+
+            forward[i][0] = false;
+
+            // number of consecutive cells before j that can be of the clue's color
+            int run = 0;
+            for (int j = 1; j <= size; j++) {
+                run = canBeFilled(j - 1, color) ? run + 1 : 0;
+
+                boolean reachable = forward[i][j - 1] && notFilled(j - 1);
+
+                if (!reachable && run >= length) {
+                    int start = j - length;
+
+                    if (!separated) {
+                        reachable = forward[i - 1][start];
+                    } else {
+                        reachable = start >= 1 && notFilled(start - 1) && forward[i - 1][start - 1];
+                    }
+                }
+
+                forward[i][j] = reachable;
+            }
+        }
+    }
+
+    protected void computeBackward() {
+        backward[nClues][size] = true;
+        for (int j = size - 1; j >= 0; j--) {
+            backward[nClues][j] = backward[nClues][j + 1] && notFilled(j);
+        }
+
+        for (int i = nClues - 1; i >= 0; i--) {
+            Clue clue = description.getClue(i);
+            int length = clue.getLength();
+            int color = clue.getColor();
+
+            backward[i][size] = false;
+
+            int run = 0;
+            for (int j = size - 1; j >= 0; j--) {
+                run = canBeFilled(j, color) ? run + 1 : 0;
+
+                boolean reachable = backward[i][j + 1] && notFilled(j);
+
+                if (!reachable && run >= length) {
+                    reachable = isSuffixValid(i, j + length);
+                }
+
+                backward[i][j] = reachable;
+            }
+        }
+    }
+
+    /**
+     * A cell can be crossed if there is a valid arrangement of the i first clues before
+     * and a valid arrangement of the other clues after.
+     */
+    protected void computeCrossedCells() {
+        for (int j = 0; j < size; j++) {
+            canBeCrossed[j] = false;
+
+            if (notFilled(j)) {
+                for (int i = 0; i <= nClues; i++) {
+                    if (forward[i][j] && backward[i][j + 1]) {
+                        canBeCrossed[j] = true;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes for each clue all valid positions and fill {@link #possibleColor}.
+     * It also updates min and max index of each clue.
+     *
+     * @return false if a clue has no valid position
+     */
+    protected boolean computeFilledCells() {
+        for (int j = 0; j < size; j++) {
+            possibleColor[j] = NO_COLOR;
+        }
+
+        for (int i = 0; i < nClues; i++) {
+            Clue clue = description.getClue(i);
+            int length = clue.getLength();
+            int color = clue.getColor();
+            boolean separated = i >= 1 && description.getClue(i - 1).getColor() == color;
+
+            for (int j = 0; j <= size; j++) {
+                coverage[j] = 0;
+            }
+
+            int minI = -1;
+            int maxI = -1;
+            int run = 0;
+            for (int end = 1; end <= size; end++) {
+                run = canBeFilled(end - 1, color) ? run + 1 : 0;
+
+                if (run < length) {
+                    continue;
+                }
+
+                int start = end - length;
+                boolean valid;
+                if (!separated) {
+                    valid = forward[i][start];
+                } else {
+                    valid = start >= 1 && notFilled(start - 1) && forward[i][start - 1];
+                }
+
+                if (valid && isSuffixValid(i, end)) {
+                    coverage[start]++;
+                    coverage[end]--;
+
+                    if (minI < 0) {
+                        minI = start;
+                    }
+                    maxI = end;
+                }
+            }
+
+            if (minI < 0) {
+                return false;
+            }
+
+            clue.setMinI(minI);
+            clue.setMaxI(maxI);
+
+            int n = 0;
+            for (int j = minI; j < maxI; j++) {
+                n += coverage[j];
+
+                if (n > 0) {
+                    if (possibleColor[j] == NO_COLOR) {
+                        possibleColor[j] = color;
+                    } else if (possibleColor[j] != color) {
+                        possibleColor[j] = MULTIPLE_COLORS;
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @param i index of a clue
+     * @param end the end of the clue (exclusive)
+     * @return true if the clues after i can be placed after end
+     */
+    private boolean isSuffixValid(int i, int end) {
+        if (i + 1 < nClues && description.getClue(i + 1).getColor() == description.getClue(i).getColor()) {
+            return end < size && notFilled(end) && backward[i + 1][end + 1];
+        } else {
+            return backward[i + 1][end];
+        }
+    }
+
+    private boolean notFilled(int j) {
+        return types[j] != Cell.FILLED;
+    }
+
+    private boolean canBeFilled(int j, int color) {
+        return types[j] == Cell.EMPTY || (types[j] == Cell.FILLED && colors[j] == color);
+    }
+}
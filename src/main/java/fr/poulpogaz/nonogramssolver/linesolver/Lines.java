@@ -0,0 +1,84 @@
+package fr.poulpogaz.nonogramssolver.linesolver;
+
+import java.util.Arrays;
+
+/**
+ * A list of {@link Line} stored in primitive arrays.
+ * It is reused by a region each time the line solver is called to avoid allocations.
+ */
+public class Lines {
+
+    private int[] starts;
+    private int[] ends;
+    private int[] colors;
+    private int size;
+
+    public Lines() {
+        this(8);
+    }
+
+    public Lines(int capacity) {
+        starts = new int[capacity];
+        ends = new int[capacity];
+        colors = new int[capacity];
+    }
+
+    /**
+     * @param start line start, inclusive
+     * @param end line end, exclusive
+     */
+    public void add(int start, int end, int color) {
+        if (end <= start) {
+            throw new IllegalArgumentException();
+        }
+
+        if (size >= starts.length) {
+            int newCapacity = Math.max(8, 2 * starts.length);
+            starts = Arrays.copyOf(starts, newCapacity);
+            ends = Arrays.copyOf(ends, newCapacity);
+            colors = Arrays.copyOf(colors, newCapacity);
+        }
+
+        starts[size] = start;
+        ends[size] = end;
+        colors[size] = color;
+        size++;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * included
+     */
+    public int start(int i) {
+        return starts[i];
+    }
+
+    /**
+     * excluded
+     */
+    public int end(int i) {
+        return ends[i];
+    }
+
+    public int color(int i) {
+        return colors[i];
+    }
+
+    public int length(int i) {
+        return ends[i] - starts[i];
+    }
+
+    /**
+     * @return a new {@link Line} object of the i-th line
+     */
+    public Line get(int i) {
+        return new Line(starts[i], ends[i], colors[i]);
+    }
+}
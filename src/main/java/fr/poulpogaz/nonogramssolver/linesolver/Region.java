@@ -21,6 +21,17 @@ public class Region extends AbstractRegion {
         this.lastClueIndex = lastClueIndex;
     }
 
+    /**
+     * Reuse this region for the current description of the ancestor
+     */
+    void set(int start, int end, int firstClueIndex, int lastClueIndex) {
+        this.description = ancestor.description;
+        this.start = start;
+        this.end = end;
+        this.firstClueIndex = firstClueIndex;
+        this.lastClueIndex = lastClueIndex;
+    }
+
     @Override
     protected void setPossibility(int cell, int clueIndex, boolean possibility) {
         ancestor.setPossibility(cell, clueIndex, possibility);
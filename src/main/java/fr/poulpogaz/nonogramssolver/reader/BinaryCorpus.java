@@ -0,0 +1,181 @@
+package fr.poulpogaz.nonogramssolver.reader;
+
+import fr.poulpogaz.nonogramssolver.Nonogram;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A read-only corpus of nonograms stored in a compact binary format, written by {@link BinaryCorpusWriter}.
+ * The file is memory-mapped: reading a nonogram only touches its record and two entries of the index.
+ * <br>
+ * Format, big endian:
+ * <pre>
+ * header:  magic "NGCB", version (u16), flags (u16), count (u32), unused (u32), index offset (u64)
+ * records: one per nonogram, see below
+ * index:   count + 1 offsets (u64). Record i spans from offset i (inclusive) to offset i + 1 (exclusive)
+ * </pre>
+ * A record is a sequence of unsigned varints (7 bits per byte, least significant group first):
+ * <pre>
+ * id length, id in UTF-8, background rgb, number of colors, rgb of each color, width, height,
+ * then for each row followed by each column: number of clues, and for each clue:
+ * its length followed by the index of its color if there is more than one color
+ * </pre>
+ * A corpus is thread safe.
+ */
+public class BinaryCorpus implements AutoCloseable {
+
+    public static final String EXTENSION = "ngcb";
+
+    static final int MAGIC = 0x4E474342; // NGCB
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 24;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int size;
+    private final int indexOffset;
+
+    private BinaryCorpus(FileChannel channel) throws IOException {
+        this.channel = channel;
+
+        if (channel.size() > Integer.MAX_VALUE) {
+            throw new IOException("Corpus larger than 2GB");
+        }
+        if (channel.size() < HEADER_SIZE) {
+            throw new IOException("Not a corpus: file too small");
+        }
+
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a corpus: bad magic number");
+        }
+        if (buffer.getShort(4) != VERSION) {
+            throw new IOException("Unsupported version: " + buffer.getShort(4));
+        }
+
+        size = buffer.getInt(8);
+        long indexOffset = buffer.getLong(16);
+
+        if (size < 0 || indexOffset < HEADER_SIZE || indexOffset + 8L * (size + 1) > channel.size()) {
+            throw new IOException("Corrupted corpus: invalid index");
+        }
+        this.indexOffset = (int) indexOffset;
+    }
+
+    public static BinaryCorpus open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            return new BinaryCorpus(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return number of nonograms
+     */
+    public int size() {
+        return size;
+    }
+
+    public String getId(int index) {
+        ByteBuffer record = record(index);
+
+        return readId(record);
+    }
+
+    /**
+     * Reads the nonogram at the specified index. A new nonogram is created at each call.
+     */
+    public Nonogram get(int index) {
+        ByteBuffer record = record(index);
+        readId(record);
+
+        Nonogram.Builder builder = new Nonogram.Builder();
+        builder.setBackground(new Color(readVarint(record)));
+
+        Color[] colors = new Color[readVarint(record)];
+        for (int i = 0; i < colors.length; i++) {
+            colors[i] = new Color(readVarint(record));
+        }
+
+        int width = readVarint(record);
+        int height = readVarint(record);
+        builder.setWidth(width);
+        builder.setHeight(height);
+
+        readLines(record, builder, colors, height, true);
+        readLines(record, builder, colors, width, false);
+
+        return builder.build();
+    }
+
+    private void readLines(ByteBuffer record, Nonogram.Builder builder, Color[] colors, int n, boolean row) {
+        for (int i = 0; i < n; i++) {
+            int nClues = readVarint(record);
+            builder.setNumberOfClue(i, row, nClues);
+
+            for (int j = 0; j < nClues; j++) {
+                int length = readVarint(record);
+                int color = colors.length > 1 ? readVarint(record) : 0;
+
+                builder.addClue(i, row, length, colors[color]);
+            }
+        }
+    }
+
+    /**
+     * @return a view of the record at the specified index
+     */
+    private ByteBuffer record(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+
+        long start = buffer.getLong(indexOffset + 8 * index);
+        long end = buffer.getLong(indexOffset + 8 * (index + 1));
+
+        if (start < HEADER_SIZE || end < start || end > indexOffset) {
+            throw new IllegalStateException("Corrupted corpus: invalid offset for record " + index);
+        }
+
+        return buffer.slice((int) start, (int) (end - start));
+    }
+
+    private String readId(ByteBuffer record) {
+        byte[] bytes = new byte[readVarint(record)];
+        record.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IllegalStateException("Corrupted corpus: varint too long");
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
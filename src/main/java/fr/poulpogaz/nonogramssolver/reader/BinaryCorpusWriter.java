@@ -0,0 +1,144 @@
+package fr.poulpogaz.nonogramssolver.reader;
+
+import fr.poulpogaz.nonogramssolver.Nonogram;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes nonograms in the format of {@link BinaryCorpus}.
+ * Records are written as they come, the index and the header are written by {@link #close()}.
+ */
+public class BinaryCorpusWriter implements AutoCloseable {
+
+    private final FileChannel channel;
+
+    private ByteBuffer record = ByteBuffer.allocate(4096);
+    private long[] offsets = new long[64];
+    private int size = 0;
+    private long position = BinaryCorpus.HEADER_SIZE;
+
+    public BinaryCorpusWriter(Path path) throws IOException {
+        channel = FileChannel.open(path,
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * @param id id of the nonogram, for example the name of the image or the id on webpbn.com
+     */
+    public void write(String id, Nonogram nonogram) throws IOException {
+        record.clear();
+
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        writeVarint(idBytes.length);
+        ensureCapacity(idBytes.length);
+        record.put(idBytes);
+
+        writeVarint(rgb(nonogram.getBackground()));
+
+        Color[] colors = nonogram.getColors();
+        writeVarint(colors.length);
+        for (Color c : colors) {
+            writeVarint(rgb(c));
+        }
+
+        writeVarint(nonogram.getWidth());
+        writeVarint(nonogram.getHeight());
+        writeLines(nonogram.getRows(), colors.length > 1);
+        writeLines(nonogram.getColumns(), colors.length > 1);
+
+        record.flip();
+        writeFully(record, position);
+
+        if (size + 1 >= offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[size++] = position;
+        position += record.limit();
+    }
+
+    private void writeLines(Nonogram.Clue[][] lines, boolean colored) {
+        for (Nonogram.Clue[] line : lines) {
+            writeVarint(line.length);
+
+            for (Nonogram.Clue clue : line) {
+                writeVarint(clue.length());
+
+                if (colored) {
+                    writeVarint(clue.color());
+                }
+            }
+        }
+    }
+
+    private int rgb(Color color) {
+        return color.getRGB() & 0xFFFFFF;
+    }
+
+    private void writeVarint(int value) {
+        ensureCapacity(5);
+
+        while ((value & ~0x7F) != 0) {
+            record.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        record.put((byte) value);
+    }
+
+    private void ensureCapacity(int n) {
+        if (record.remaining() < n) {
+            ByteBuffer newRecord = ByteBuffer.allocate(Math.max(record.capacity() * 2, record.position() + n));
+            record.flip();
+            newRecord.put(record);
+            record = newRecord;
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * @return number of nonograms written
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Writes the index and the header then closes the file
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            offsets[size] = position;
+
+            ByteBuffer index = ByteBuffer.allocate(8 * (size + 1));
+            for (int i = 0; i <= size; i++) {
+                index.putLong(offsets[i]);
+            }
+            index.flip();
+            writeFully(index, position);
+
+            ByteBuffer header = ByteBuffer.allocate(BinaryCorpus.HEADER_SIZE);
+            header.putInt(BinaryCorpus.MAGIC);
+            header.putShort((short) BinaryCorpus.VERSION);
+            header.putShort((short) 0);
+            header.putInt(size);
+            header.putInt(0);
+            header.putLong(position);
+            header.flip();
+            writeFully(header, 0);
+        } finally {
+            channel.close();
+        }
+    }
+}
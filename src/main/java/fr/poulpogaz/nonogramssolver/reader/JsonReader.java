@@ -0,0 +1,126 @@
+package fr.poulpogaz.nonogramssolver.reader;
+
+import fr.poulpogaz.nonogramssolver.Nonogram;
+import fr.poulpogaz.nonogramssolver.utils.Json;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads puzzles in the following json format:
+ * <pre>
+ * {
+ *     "background": "ffffff",
+ *     "colors": {"black": "000000", "red": "ff0000"},
+ *     "rows": [[1, 2], [], [{"length": 3, "color": "red"}]],
+ *     "columns": [[2], [1, {"length": 1, "color": "red"}], [1]]
+ * }
+ * </pre>
+ * background and colors are optional. A clue without color uses the first color, black by default.
+ */
+public class JsonReader {
+
+    public Nonogram read(Path path) throws IOException {
+        return read(Files.readString(path));
+    }
+
+    public Nonogram read(String json) throws IOException {
+        try {
+            return parse(Json.parse(json));
+        } catch (IllegalArgumentException | IllegalStateException | ClassCastException e) {
+            throw new IOException("Invalid nonogram: " + e.getMessage(), e);
+        }
+    }
+
+    private Nonogram parse(Object json) {
+        if (!(json instanceof Map<?, ?> root)) {
+            throw new IllegalArgumentException("Not an object");
+        }
+
+        Nonogram.Builder builder = new Nonogram.Builder();
+
+        if (root.get("background") instanceof String background) {
+            builder.setBackground(parseColor(background));
+        } else {
+            builder.setBackground(Color.WHITE);
+        }
+
+        Map<String, Color> colors = new LinkedHashMap<>();
+        if (root.get("colors") instanceof Map<?, ?> map) {
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                colors.put((String) entry.getKey(), parseColor((String) entry.getValue()));
+            }
+        }
+        if (colors.isEmpty()) {
+            colors.put("black", Color.BLACK);
+        }
+
+        List<?> rows = getLines(root, "rows");
+        List<?> columns = getLines(root, "columns");
+
+        builder.setHeight(rows.size());
+        builder.setWidth(columns.size());
+
+        for (int i = 0; i < rows.size(); i++) {
+            addLine(builder, colors, (List<?>) rows.get(i), i, true);
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            addLine(builder, colors, (List<?>) columns.get(i), i, false);
+        }
+
+        return builder.build();
+    }
+
+    private List<?> getLines(Map<?, ?> root, String key) {
+        if (root.get(key) instanceof List<?> lines && !lines.isEmpty()) {
+            return lines;
+        }
+
+        throw new IllegalArgumentException("No " + key);
+    }
+
+    private void addLine(Nonogram.Builder builder, Map<String, Color> colors, List<?> clues, int i, boolean row) {
+        Color defaultColor = colors.values().iterator().next();
+
+        builder.setNumberOfClue(i, row, clues.size());
+        for (Object clue : clues) {
+            if (clue instanceof Number length) {
+                builder.addClue(i, row, toLength(length), defaultColor);
+            } else if (clue instanceof Map<?, ?> map) {
+                Color color = defaultColor;
+                if (map.get("color") instanceof String name) {
+                    color = colors.get(name);
+
+                    if (color == null) {
+                        throw new IllegalArgumentException("Unknown color: " + name);
+                    }
+                }
+
+                builder.addClue(i, row, toLength((Number) map.get("length")), color);
+            } else {
+                throw new IllegalArgumentException("Invalid clue: " + clue);
+            }
+        }
+    }
+
+    private int toLength(Number number) {
+        if (number == null || number.intValue() <= 0) {
+            throw new IllegalArgumentException("Invalid clue length: " + number);
+        }
+
+        return number.intValue();
+    }
+
+    private Color parseColor(String color) {
+        if (color.startsWith("#")) {
+            color = color.substring(1);
+        }
+
+        return new Color(Integer.parseInt(color, 16));
+    }
+}
@@ -0,0 +1,327 @@
+package fr.poulpogaz.nonogramssolver.reader;
+
+import fr.poulpogaz.nonogramssolver.Nonogram;
+import fr.poulpogaz.nonogramssolver.utils.Utils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Puzzles exported from webpbn.com and stored locally, indexed by their id.
+ * A corpus is loaded from xml files, directories containing xml files and zip archives of xml files.
+ * <br>
+ * Loading only reads the ids, in parallel: a puzzle is parsed when it is requested by {@link #get(String)}.
+ * The id of a puzzle is the content of its {@code <id>} element. If there isn't one,
+ * the name of the file without extension is used, for example 1234.xml. When two puzzles have
+ * the same id, the first one in the order of the paths given to {@link #load(Collection, int)} is kept.
+ */
+public class WebpbnCorpus {
+
+    private static final Logger LOGGER = LogManager.getLogger(WebpbnCorpus.class);
+
+    private final Map<String, Location> puzzles;
+
+    private WebpbnCorpus(Map<String, Location> puzzles) {
+        this.puzzles = Collections.unmodifiableMap(puzzles);
+    }
+
+    /**
+     * @param paths xml files, directories or zip archives. Directories are explored recursively
+     * @param threads number of files read at the same time
+     */
+    public static WebpbnCorpus load(Collection<Path> paths, int threads) throws IOException {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Number of threads must be positive");
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "corpus-loader-" + threadNumber.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+
+        try {
+            List<Path> files = new ArrayList<>();
+            for (Path path : paths) {
+                addFiles(path, files);
+            }
+
+            List<Callable<List<Indexed>>> tasks = new ArrayList<>(files.size());
+            for (Path file : files) {
+                tasks.add(() -> readIds(file));
+            }
+
+            List<Future<List<Indexed>>> results = executor.invokeAll(tasks);
+
+            Map<String, Location> puzzles = new LinkedHashMap<>();
+            int nSources = 0;
+            for (int i = 0; i < files.size(); i++) {
+                for (Indexed indexed : getResult(results.get(i), files.get(i))) {
+                    Source source = indexed.source();
+                    nSources++;
+
+                    for (int j = 0; j < indexed.ids().size(); j++) {
+                        String id = indexed.ids().get(j);
+                        if (id == null) {
+                            id = source.defaultId();
+                        }
+
+                        if (puzzles.putIfAbsent(id, new Location(source, j)) != null) {
+                            LOGGER.debug("Duplicate puzzle {} in {}", id, source.name());
+                        }
+                    }
+                }
+            }
+
+            LOGGER.debug("Indexed {} puzzles from {} files", puzzles.size(), nSources);
+            return new WebpbnCorpus(puzzles);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading corpus", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<Indexed> getResult(Future<List<Indexed>> future, Path file)
+            throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to read " + file, e.getCause());
+        }
+    }
+
+    /**
+     * Reads the ids of the puzzles of a xml file or of all xml files of a zip archive.
+     * A zip archive is opened once for all its entries.
+     */
+    private static List<Indexed> readIds(Path file) throws IOException {
+        WebpbnReader reader = new WebpbnReader();
+
+        if (!isZip(file)) {
+            Source source = new FileSource(file);
+
+            try (InputStream is = source.open()) {
+                return List.of(new Indexed(source, reader.readIds(is)));
+            }
+        }
+
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            List<? extends ZipEntry> entries = zip.stream()
+                    .filter(e -> !e.isDirectory() && e.getName().toLowerCase(Locale.ROOT).endsWith(".xml"))
+                    .sorted(Comparator.comparing(ZipEntry::getName))
+                    .toList();
+
+            List<Indexed> indexed = new ArrayList<>(entries.size());
+            for (ZipEntry entry : entries) {
+                try (InputStream is = zip.getInputStream(entry)) {
+                    indexed.add(new Indexed(new ZipSource(file, entry.getName()), reader.readIds(is)));
+                }
+            }
+
+            return indexed;
+        }
+    }
+
+    private static void addFiles(Path path, List<Path> files) throws IOException {
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> walk = Files.walk(path)) {
+                walk.filter(Files::isRegularFile)
+                        .filter(WebpbnCorpus::isSupported)
+                        .sorted()
+                        .forEach(files::add);
+            }
+        } else if (Files.isRegularFile(path)) {
+            files.add(path);
+        } else {
+            throw new IOException("No such file: " + path);
+        }
+    }
+
+    private static boolean isZip(Path path) {
+        return Utils.getExtension(path).equalsIgnoreCase("zip");
+    }
+
+    private static boolean isSupported(Path path) {
+        return isZip(path) || Utils.getExtension(path).equalsIgnoreCase("xml");
+    }
+
+    /**
+     * Parses the puzzle. Each call returns a new nonogram
+     *
+     * @return the puzzle, or null if there is no puzzle with this id
+     */
+    public Nonogram get(String id) throws IOException {
+        Location location = puzzles.get(id);
+
+        if (location == null) {
+            return null;
+        }
+
+        try (InputStream is = location.source().open();
+             Stream<WebpbnReader.Puzzle> puzzles = new WebpbnReader().readPuzzles(is)) {
+            return puzzles.skip(location.index())
+                    .findFirst()
+                    .orElseThrow(() -> new IOException("Puzzle " + id + " not found in " + location.source().name()))
+                    .nonogram();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Parses all puzzles in the order of {@link #ids()}. Each file is read once
+     */
+    public void forEach(PuzzleConsumer consumer) throws IOException {
+        Map<Source, Map<Integer, String>> sources = new LinkedHashMap<>();
+        for (Map.Entry<String, Location> e : puzzles.entrySet()) {
+            Location location = e.getValue();
+            sources.computeIfAbsent(location.source(), s -> new HashMap<>()).put(location.index(), e.getKey());
+        }
+
+        for (Map.Entry<Source, Map<Integer, String>> e : sources.entrySet()) {
+            Map<Integer, String> ids = e.getValue();
+
+            try (InputStream is = e.getKey().open();
+                 Stream<WebpbnReader.Puzzle> puzzles = new WebpbnReader().readPuzzles(is)) {
+                Iterator<WebpbnReader.Puzzle> it = puzzles.iterator();
+
+                for (int i = 0; it.hasNext(); i++) {
+                    WebpbnReader.Puzzle puzzle = it.next();
+                    String id = ids.get(i);
+
+                    if (id != null) {
+                        consumer.accept(id, puzzle.nonogram());
+                    }
+                }
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+
+    public boolean contains(String id) {
+        return puzzles.containsKey(id);
+    }
+
+    /**
+     * @return ids in the order of the files
+     */
+    public Set<String> ids() {
+        return puzzles.keySet();
+    }
+
+    public int size() {
+        return puzzles.size();
+    }
+
+    @FunctionalInterface
+    public interface PuzzleConsumer {
+
+        void accept(String id, Nonogram nonogram) throws IOException;
+    }
+
+    private record Location(Source source, int index) {}
+
+    private record Indexed(Source source, List<String> ids) {}
+
+    private interface Source {
+
+        InputStream open() throws IOException;
+
+        String name();
+
+        /**
+         * @return the id of puzzles without id: the file name without extension
+         */
+        String defaultId();
+    }
+
+    private record FileSource(Path path) implements Source {
+
+        @Override
+        public InputStream open() throws IOException {
+            return Files.newInputStream(path);
+        }
+
+        @Override
+        public String name() {
+            return path.toString();
+        }
+
+        @Override
+        public String defaultId() {
+            return Utils.getFileName(path);
+        }
+    }
+
+    private record ZipSource(Path zip, String entry) implements Source {
+
+        /**
+         * @return a stream which closes the archive when it is closed
+         */
+        @Override
+        public InputStream open() throws IOException {
+            ZipFile file = new ZipFile(zip.toFile());
+
+            try {
+                ZipEntry zipEntry = file.getEntry(entry);
+                if (zipEntry == null) {
+                    throw new IOException("No entry " + entry + " in " + zip);
+                }
+
+                return new FilterInputStream(file.getInputStream(zipEntry)) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            file.close();
+                        }
+                    }
+                };
+            } catch (IOException | RuntimeException e) {
+                file.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public String name() {
+            return zip + "!" + entry;
+        }
+
+        @Override
+        public String defaultId() {
+            return Utils.getFileName(Path.of(entry));
+        }
+    }
+}
@@ -1,27 +1,54 @@
 package fr.poulpogaz.nonogramssolver.reader;
 
 import fr.poulpogaz.nonogramssolver.Nonogram;
-import org.dom4j.Document;
-import org.dom4j.DocumentException;
-import org.dom4j.Element;
-import org.dom4j.Node;
-import org.dom4j.io.SAXReader;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.awt.*;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.*;
-
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads puzzles in the xml format of webpbn.com. The xml is read in one pass with StAX,
+ * so a file can contain many puzzles without being loaded in memory.
+ * A reader is thread safe.
+ */
 public class WebpbnReader {
 
-    private static final SAXReader reader = new SAXReader();
     private static final URI uri = URI.create("https://webpbn.com/XMLpuz.cgi");
 
+    private static final XMLInputFactory factory = createFactory();
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+
+        // files start with a DOCTYPE pointing to webpbn.com: don't download it
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+
+        return factory;
+    }
+
     public Nonogram read(String id) throws IOException, InterruptedException {
         String post = "id=%s&version=0&restore=undefined&sid=undefined".formatted(id);
 
@@ -31,103 +58,337 @@ public class WebpbnReader {
 
         HttpResponse<InputStream> rep = HttpUtils.CLIENT.send(req, HttpResponse.BodyHandlers.ofInputStream());
 
-        if (rep.statusCode() != HttpURLConnection.HTTP_OK) {
-            rep.body().close();
+        try (InputStream is = rep.body()) {
+            if (rep.statusCode() != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Bad status: " + rep.statusCode());
+            }
+
+            return read(is);
+        }
+    }
+
+    /**
+     * Reads the first puzzle of a file previously downloaded from webpbn.com
+     */
+    public Nonogram read(Path path) throws IOException {
+        try (InputStream is = Files.newInputStream(path)) {
+            return read(is);
+        }
+    }
 
-            throw new IOException("Bad status: " + rep.statusCode());
+    /**
+     * Reads the first puzzle. The stream isn't closed
+     */
+    public Nonogram read(InputStream is) throws IOException {
+        try (Stream<Nonogram> puzzles = readAll(is)) {
+            return puzzles.findFirst().orElseThrow(() -> new IOException("No puzzle"));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
+    }
+
+    /**
+     * Reads all puzzles of a file. The file is closed when the stream is closed.
+     * Errors are thrown as {@link UncheckedIOException} by the stream.
+     */
+    public Stream<Nonogram> readAll(Path path) throws IOException {
+        InputStream is = Files.newInputStream(path);
 
-        Document document;
         try {
-            document = reader.read(rep.body());
-        } catch (DocumentException e) {
+            return readAll(is).onClose(() -> {
+                try {
+                    is.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            is.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads lazily all puzzles. Puzzles are parsed when the stream consumes them.
+     * The input stream isn't closed.
+     * Errors are thrown as {@link UncheckedIOException} by the stream.
+     */
+    public Stream<Nonogram> readAll(InputStream is) throws IOException {
+        return readPuzzles(is).map(Puzzle::nonogram);
+    }
+
+    /**
+     * Same as {@link #readAll(InputStream)} but puzzles come with their id
+     */
+    public Stream<Puzzle> readPuzzles(InputStream is) throws IOException {
+        XMLStreamReader xml;
+        try {
+            xml = factory.createXMLStreamReader(is);
+        } catch (XMLStreamException e) {
             throw new IOException(e);
-        } finally {
-            rep.body().close();
         }
 
-        return parseDocument(document);
+        PuzzleIterator iterator = new PuzzleIterator(xml);
+        Spliterator<Puzzle> spliterator = Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL);
+
+        return StreamSupport.stream(spliterator, false)
+                .onClose(iterator::close);
     }
 
-    private Nonogram parseDocument(Document document) {
-        Nonogram.Builder builder = new Nonogram.Builder();
-        builder.setBackground(Color.WHITE);
+    /**
+     * Reads the id of each puzzle without reading the clues. The input stream isn't closed.
+     *
+     * @return ids in the order of the puzzles, null for puzzles without id
+     */
+    public List<String> readIds(InputStream is) throws IOException {
+        try {
+            XMLStreamReader xml = factory.createXMLStreamReader(is);
+
+            try {
+                List<String> ids = new ArrayList<>();
+                String id = null;
+
+                while (xml.hasNext()) {
+                    int event = xml.next();
+
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        if (xml.getLocalName().equals("puzzle")) {
+                            id = null;
+                        } else if (xml.getLocalName().equals("id")) {
+                            id = parseId(xml.getElementText());
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT && xml.getLocalName().equals("puzzle")) {
+                        ids.add(id);
+                    }
+                }
+
+                return ids;
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * @param id id of the puzzle on webpbn.com, without the '#', or null if the file doesn't contain it
+     */
+    public record Puzzle(String id, Nonogram nonogram) {}
+
+    private static class PuzzleIterator implements Iterator<Puzzle> {
+
+        private final XMLStreamReader xml;
+        private Puzzle next;
+        private boolean end;
+
+        public PuzzleIterator(XMLStreamReader xml) {
+            this.xml = xml;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !end) {
+                try {
+                    next = nextPuzzle();
+                } catch (XMLStreamException e) {
+                    throw new UncheckedIOException(new IOException(e));
+                } catch (IllegalStateException | IllegalArgumentException e) {
+                    throw new UncheckedIOException(new IOException("Invalid puzzle: " + e.getMessage(), e));
+                }
 
-        List<NamedColor> colors = getColors(document);
-        List<Node> clues = document.selectNodes("//clues");
+                end = next == null;
+            }
+
+            return next != null;
+        }
+
+        @Override
+        public Puzzle next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            Puzzle n = next;
+            next = null;
+            return n;
+        }
+
+        private Puzzle nextPuzzle() throws XMLStreamException {
+            while (xml.hasNext()) {
+                if (xml.next() == XMLStreamConstants.START_ELEMENT && xml.getLocalName().equals("puzzle")) {
+                    return readPuzzle(xml);
+                }
+            }
 
-        for (int i = 0; i < 2; i++) {
-            Element element = (Element) clues.get(i);
-            boolean row = element.attribute("type").getText().equals("rows");
+            return null;
+        }
 
-            List<Element> children = element.elements();
+        public void close() {
+            try {
+                xml.close();
+            } catch (XMLStreamException e) {
+                throw new UncheckedIOException(new IOException(e));
+            }
+        }
+    }
 
-            if (row) {
-                builder.setHeight(children.size());
-            } else {
-                builder.setWidth(children.size());
+    /**
+     * Reads a puzzle. The reader must be on the start of the puzzle element.
+     * After, it is on the end of the puzzle element
+     */
+    private static Puzzle readPuzzle(XMLStreamReader xml) throws XMLStreamException {
+        String id = null;
+        String defaultColor = xml.getAttributeValue(null, "defaultcolor");
+        Map<String, Color> colors = new LinkedHashMap<>();
+        List<List<Clue>> rows = null;
+        List<List<Clue>> columns = null;
+
+        while (xml.hasNext()) {
+            int event = xml.next();
+
+            if (event == XMLStreamConstants.END_ELEMENT && xml.getLocalName().equals("puzzle")) {
+                break;
+            } else if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
             }
 
-            for (int j = 0; j < children.size(); j++) {
-                Element line = children.get(j);
-                newLine(colors, builder, line, j, row);
+            switch (xml.getLocalName()) {
+                case "id" -> id = parseId(xml.getElementText());
+                case "color" -> {
+                    String name = xml.getAttributeValue(null, "name");
+                    colors.putIfAbsent(name, parseColor(xml.getElementText()));
+                }
+                case "clues" -> {
+                    boolean row = "rows".equals(xml.getAttributeValue(null, "type"));
+                    List<List<Clue>> lines = readClues(xml);
+
+                    if (row) {
+                        rows = lines;
+                    } else {
+                        columns = lines;
+                    }
+                }
             }
         }
 
-        return builder.build();
+        if (rows == null || columns == null) {
+            throw new IllegalStateException("Missing clues");
+        }
+
+        Nonogram.Builder builder = new Nonogram.Builder();
+        builder.setBackground(Color.WHITE);
+        builder.setHeight(rows.size());
+        builder.setWidth(columns.size());
+
+        Color def = getDefaultColor(colors, defaultColor);
+        addLines(builder, colors, def, rows, true);
+        addLines(builder, colors, def, columns, false);
+
+        return new Puzzle(id, builder.build());
+    }
+
+    private static String parseId(String str) {
+        str = str.trim();
+
+        if (str.startsWith("#")) {
+            return str.substring(1);
+        } else {
+            return str;
+        }
     }
 
-    private List<NamedColor> getColors(Document document) {
-        List<Node> colorNodes = document.selectNodes("//color");
+    /**
+     * Reads the lines of a clues element. Counts of 0 are ignored
+     */
+    private static List<List<Clue>> readClues(XMLStreamReader xml) throws XMLStreamException {
+        List<List<Clue>> lines = new ArrayList<>();
+        List<Clue> line = null;
+
+        while (xml.hasNext()) {
+            int event = xml.next();
 
-        List<NamedColor> colors = new ArrayList<>();
-        for (Node n : colorNodes) {
-            Element e = (Element) n;
+            if (event == XMLStreamConstants.END_ELEMENT && xml.getLocalName().equals("clues")) {
+                break;
+            } else if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
 
-            String colorName = e.attributeValue("color");
-            Color color = new Color(Integer.parseInt(e.getText(), 16));
+            if (xml.getLocalName().equals("line")) {
+                line = new ArrayList<>();
+                lines.add(line);
+            } else if (xml.getLocalName().equals("count") && line != null) {
+                String color = xml.getAttributeValue(null, "color");
+                int length = Integer.parseInt(xml.getElementText().trim());
 
-            colors.add(new NamedColor(colorName, color));
+                if (length != 0) {
+                    line.add(new Clue(length, color));
+                }
+            }
         }
 
-        return colors;
+        return lines;
     }
 
-    private void newLine(List<NamedColor> colors, Nonogram.Builder builder, Element line, int i, boolean row) {
-        List<Clue> clues = new ArrayList<>();
+    /**
+     * @return the color of counts without a color attribute: the default color of the puzzle
+     * or the second color, the first one being the background
+     */
+    private static Color getDefaultColor(Map<String, Color> colors, String defaultColor) {
+        if (defaultColor != null && colors.containsKey(defaultColor)) {
+            return colors.get(defaultColor);
+        }
+
+        List<Color> list = new ArrayList<>(colors.values());
+        if (list.size() >= 2) {
+            return list.get(1);
+        } else {
+            return Color.BLACK;
+        }
+    }
+
+    private static void addLines(Nonogram.Builder builder, Map<String, Color> colors, Color defaultColor,
+                                 List<List<Clue>> lines, boolean row) {
+        for (int i = 0; i < lines.size(); i++) {
+            List<Clue> clues = lines.get(i);
 
-        for (int j = 0; j < line.nodeCount(); j++) {
-            Element clue = (Element) line.node(j);
-            int length = Integer.parseInt(clue.getText());
+            builder.setNumberOfClue(i, row, clues.size());
+            for (Clue c : clues) {
+                Color color = defaultColor;
 
-            if (length != 0) {
-                String col = clue.attributeValue("color");
+                if (c.color() != null) {
+                    color = colors.get(c.color());
 
-                if (col == null) {
-                    clues.add(new Clue(length, colors.get(1).color()));
-                } else {
-                    clues.add(new Clue(length, getColor(colors, col)));
+                    if (color == null) {
+                        throw new IllegalStateException("Unknown color: " + c.color());
+                    }
                 }
+
+                builder.addClue(i, row, c.length(), color);
             }
         }
+    }
 
-        builder.setNumberOfClue(i, row, clues.size());
-        for (Clue c : clues) {
-            builder.addClue(i, row, c.length(), c.color());
+    /**
+     * Parses colors written with 6 or 3 hexadecimal digits
+     */
+    private static Color parseColor(String str) {
+        str = str.trim();
+        if (str.startsWith("#")) {
+            str = str.substring(1);
         }
-    }
 
-    private Color getColor(List<NamedColor> colors, String col) {
-        for (NamedColor c : colors) {
-            if (c.name().equals(col)) {
-                return c.color();
+        if (str.length() == 3) {
+            StringBuilder sb = new StringBuilder(6);
+            for (int i = 0; i < 3; i++) {
+                sb.append(str.charAt(i)).append(str.charAt(i));
             }
+            str = sb.toString();
         }
 
-        throw new IllegalStateException();
+        return new Color(Integer.parseInt(str, 16));
     }
 
-    private record NamedColor(String name, Color color) {}
-
-    private record Clue(int length, Color color) {}
+    private record Clue(int length, String color) {}
 }
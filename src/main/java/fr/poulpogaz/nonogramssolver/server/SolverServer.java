@@ -0,0 +1,448 @@
+package fr.poulpogaz.nonogramssolver.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import fr.poulpogaz.nonogramssolver.Nonogram;
+import fr.poulpogaz.nonogramssolver.NonogramRenderer;
+import fr.poulpogaz.nonogramssolver.reader.JsonReader;
+import fr.poulpogaz.nonogramssolver.reader.WebpbnReader;
+import fr.poulpogaz.nonogramssolver.solver.Description;
+import fr.poulpogaz.nonogramssolver.solver.NonogramSolver;
+import fr.poulpogaz.nonogramssolver.solver.NonogramSolverPool;
+import fr.poulpogaz.nonogramssolver.solver.SolverAdapter;
+import fr.poulpogaz.nonogramssolver.solver.SolverListener;
+import fr.poulpogaz.nonogramssolver.solver.SolverStats;
+import fr.poulpogaz.nonogramssolver.utils.Json;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A http server solving nonograms.
+ * <ul>
+ *     <li>POST /solve: solves the nonogram in the body, in the xml format of webpbn or
+ *     in the format of {@link JsonReader}. Query parameters: {@code timeout} in milliseconds,
+ *     at most the timeout of the server, {@code png} to add the rendered solution encoded in base64
+ *     and {@code square-size} for the size of a cell in the png</li>
+ *     <li>GET /metrics: counters of the server in json</li>
+ * </ul>
+ * Nonograms are solved by a fixed number of workers. Each worker has its own {@link NonogramSolver}.
+ * When all workers are busy, nonograms wait in a bounded queue. When the queue is full,
+ * the server answers with 503. When a nonogram isn't solved before the timeout, the solver
+ * is interrupted and the server answers with 504.
+ */
+public class SolverServer implements AutoCloseable {
+
+    private static final Logger LOGGER = LogManager.getLogger(SolverServer.class);
+
+    static final int MAX_BODY_SIZE = 1 << 20;
+    private static final int DEFAULT_SQUARE_SIZE = 8;
+
+    /**
+     * Stops the solver when the worker is interrupted, see {@link Future#cancel(boolean)}
+     */
+    private static final SolverListener INTERRUPTIBLE = new SolverAdapter() {
+        @Override
+        public void onLineSolved(Nonogram n, Description d, int mode) {
+            checkInterrupted();
+        }
+
+        @Override
+        public void onPassFinished(Nonogram n, int mode) {
+            checkInterrupted();
+        }
+
+        @Override
+        public void onContradiction(Nonogram n, boolean found) {
+            checkInterrupted();
+        }
+
+        private void checkInterrupted() {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException();
+            }
+        }
+    };
+
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final ThreadPoolExecutor workers;
+    private final NonogramSolverPool solvers;
+
+    private final int queueSize;
+    private final long timeout;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder solved = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder badRequests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder solveTime = new LongAdder();
+
+    /**
+     * @param address address to listen to. Port 0 picks a free port
+     * @param workers number of nonograms solved at the same time
+     * @param queueSize number of nonograms waiting for a worker before the server rejects requests
+     * @param timeout maximal time in milliseconds to wait for a result, including the time in the queue
+     * @param solverFactory creates the solver of each worker
+     */
+    public SolverServer(InetSocketAddress address, int workers, int queueSize, long timeout,
+                        Supplier<NonogramSolver> solverFactory) throws IOException {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("Number of workers must be positive");
+        }
+        if (queueSize <= 0) {
+            throw new IllegalArgumentException("Queue size must be positive");
+        }
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("Timeout must be positive");
+        }
+
+        this.queueSize = queueSize;
+        this.timeout = timeout;
+        this.solvers = new NonogramSolverPool(solverFactory);
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), threadFactory("solver-worker-"));
+        this.handlers = Executors.newCachedThreadPool(threadFactory("http-handler-"));
+
+        server = HttpServer.create(address, 0);
+        server.setExecutor(handlers);
+        server.createContext("/solve", new SolveHandler());
+        server.createContext("/metrics", new MetricsHandler());
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        return r -> {
+            Thread t = new Thread(r, prefix + threadNumber.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    public void start() {
+        server.start();
+        LOGGER.debug("Listening on {}", server.getAddress());
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Stops the server. Running requests are cancelled
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        workers.shutdownNow();
+        handlers.shutdownNow();
+    }
+
+    private String solve(Nonogram nonogram, boolean png, int squareSize) throws IOException {
+        NonogramSolver solver = solvers.get();
+
+        long start = System.nanoTime();
+        SolverStats stats = solver.solve(nonogram, INTERRUPTIBLE, true, true);
+        boolean solved = stats.isSolved();
+        long elapsed = System.nanoTime() - start;
+        solveTime.add(elapsed);
+
+        if (solved) {
+            this.solved.increment();
+        } else {
+            failed.increment();
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"status\":\"").append(solved ? "solved" : "failed").append('"');
+        sb.append(",\"width\":").append(nonogram.getWidth());
+        sb.append(",\"height\":").append(nonogram.getHeight());
+        sb.append(String.format(Locale.ROOT, ",\"elapsed_ms\":%.3f", elapsed / 1e6));
+        sb.append(",\"guesses\":").append(stats.getGuesses());
+        sb.append(",\"probes\":").append(stats.getProbes());
+
+        if (solved) {
+            appendSolution(sb, nonogram);
+
+            if (png) {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                ImageIO.write(NonogramRenderer.DEFAULT.asImage(nonogram, squareSize), "png", baos);
+
+                sb.append(",\"png\":\"").append(Base64.getEncoder().encodeToString(baos.toByteArray())).append('"');
+            }
+        }
+
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Appends the colors and the solution, one element per row.
+     * If the nonogram is monochrome, a row is a string where a filled cell is '#' and
+     * a crossed cell is '.'. Otherwise, a row is an array of the index of the color
+     * of each cell, -1 for a crossed cell.
+     */
+    private void appendSolution(StringBuilder sb, Nonogram nonogram) {
+        sb.append(",\"colors\":[");
+        Color[] colors = nonogram.getColors();
+        for (int i = 0; i < colors.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(String.format("\"%06x\"", colors[i].getRGB() & 0xFFFFFF));
+        }
+
+        sb.append("],\"solution\":[");
+        for (int y = 0; y < nonogram.getHeight(); y++) {
+            if (y > 0) {
+                sb.append(',');
+            }
+
+            if (nonogram.isMonochrome()) {
+                sb.append('"');
+                for (int x = 0; x < nonogram.getWidth(); x++) {
+                    sb.append(nonogram.isFilled(x, y) ? '#' : '.');
+                }
+                sb.append('"');
+            } else {
+                sb.append('[');
+                for (int x = 0; x < nonogram.getWidth(); x++) {
+                    if (x > 0) {
+                        sb.append(',');
+                    }
+                    sb.append(nonogram.isFilled(x, y) ? nonogram.getColor(x, y) : -1);
+                }
+                sb.append(']');
+            }
+        }
+        sb.append(']');
+    }
+
+    private class SolveHandler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try (exchange) {
+                if (!exchange.getRequestMethod().equals("POST")) {
+                    send(exchange, 405, error("Only POST is allowed"));
+                    return;
+                }
+
+                requests.increment();
+
+                Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+                Nonogram nonogram;
+                long timeout;
+                boolean png;
+                int squareSize;
+                try {
+                    timeout = Math.min(SolverServer.this.timeout, parseLong(query, "timeout", SolverServer.this.timeout));
+                    png = query.containsKey("png") && !query.get("png").equals("false");
+                    squareSize = (int) parseLong(query, "square-size", DEFAULT_SQUARE_SIZE);
+                    if (timeout <= 0 || squareSize <= 0) {
+                        throw new IOException("timeout and square-size must be positive");
+                    }
+
+                    byte[] body = readBody(exchange.getRequestBody());
+                    if (body == null) {
+                        badRequests.increment();
+                        send(exchange, 413, error("Body too large"));
+                        return;
+                    }
+
+                    nonogram = readNonogram(exchange.getRequestHeaders().getFirst("Content-Type"), body);
+                } catch (IOException | RuntimeException e) {
+                    badRequests.increment();
+                    send(exchange, 400, error(e.getMessage()));
+                    return;
+                }
+
+                Future<String> future;
+                try {
+                    future = workers.submit(() -> solve(nonogram, png, squareSize));
+                } catch (RejectedExecutionException e) {
+                    rejected.increment();
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    send(exchange, 503, error("Too many requests"));
+                    return;
+                }
+
+                try {
+                    send(exchange, 200, future.get(timeout, TimeUnit.MILLISECONDS));
+                } catch (TimeoutException e) {
+                    future.cancel(true);
+                    workers.remove((Runnable) future);
+                    timeouts.increment();
+
+                    send(exchange, 504, error("Not solved in " + timeout + " ms"));
+                } catch (InterruptedException e) {
+                    future.cancel(true);
+
+                    // the interrupt flag is restored after sending: it closes the channel of the exchange
+                    try {
+                        send(exchange, 503, error("Server is stopping"));
+                    } finally {
+                        Thread.currentThread().interrupt();
+                    }
+                } catch (ExecutionException e) {
+                    errors.increment();
+                    LOGGER.debug("Failed to solve", e.getCause());
+
+                    send(exchange, 500, error(String.valueOf(e.getCause())));
+                }
+            }
+        }
+
+        private Nonogram readNonogram(String contentType, byte[] body) throws IOException {
+            boolean json;
+            if (contentType != null && contentType.contains("json")) {
+                json = true;
+            } else if (contentType != null && contentType.contains("xml")) {
+                json = false;
+            } else {
+                json = firstNonWhitespace(body) == '{';
+            }
+
+            if (json) {
+                return new JsonReader().read(new String(body, StandardCharsets.UTF_8));
+            } else {
+                return new WebpbnReader().read(new ByteArrayInputStream(body));
+            }
+        }
+
+        private int firstNonWhitespace(byte[] body) {
+            for (byte b : body) {
+                if (!Character.isWhitespace(b)) {
+                    return b;
+                }
+            }
+
+            return -1;
+        }
+
+        /**
+         * @return the body or null if it is larger than {@link #MAX_BODY_SIZE}
+         */
+        private byte[] readBody(InputStream is) throws IOException {
+            byte[] body = is.readNBytes(MAX_BODY_SIZE + 1);
+
+            if (body.length > MAX_BODY_SIZE) {
+                return null;
+            }
+
+            return body;
+        }
+
+        private Map<String, String> parseQuery(String query) {
+            Map<String, String> map = new HashMap<>();
+
+            if (query != null) {
+                for (String param : query.split("&")) {
+                    int equal = param.indexOf('=');
+
+                    if (equal < 0) {
+                        map.put(decode(param), "");
+                    } else {
+                        map.put(decode(param.substring(0, equal)), decode(param.substring(equal + 1)));
+                    }
+                }
+            }
+
+            return map;
+        }
+
+        private String decode(String str) {
+            return URLDecoder.decode(str, StandardCharsets.UTF_8);
+        }
+
+        private long parseLong(Map<String, String> query, String key, long defaultValue) throws IOException {
+            String value = query.get(key);
+            if (value == null) {
+                return defaultValue;
+            }
+
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid " + key + ": " + value);
+            }
+        }
+    }
+
+    private class MetricsHandler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try (exchange) {
+                if (!exchange.getRequestMethod().equals("GET")) {
+                    send(exchange, 405, error("Only GET is allowed"));
+                    return;
+                }
+
+                String metrics = "{" +
+                        "\"requests\":" + requests.sum() +
+                        ",\"solved\":" + solved.sum() +
+                        ",\"failed\":" + failed.sum() +
+                        ",\"timeouts\":" + timeouts.sum() +
+                        ",\"rejected\":" + rejected.sum() +
+                        ",\"bad_requests\":" + badRequests.sum() +
+                        ",\"errors\":" + errors.sum() +
+                        String.format(Locale.ROOT, ",\"solve_time_ms\":%.3f", solveTime.sum() / 1e6) +
+                        ",\"workers\":" + workers.getMaximumPoolSize() +
+                        ",\"active_workers\":" + workers.getActiveCount() +
+                        ",\"queue_size\":" + workers.getQueue().size() +
+                        ",\"queue_capacity\":" + queueSize +
+                        "}";
+
+                send(exchange, 200, metrics);
+            }
+        }
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + Json.quote(String.valueOf(message)) + "}";
+    }
+
+    private static void send(HttpExchange exchange, int code, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(code, bytes.length);
+
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+}
@@ -1,15 +1,16 @@
 package fr.poulpogaz.nonogramssolver.solver;
 
 import fr.poulpogaz.nonogramssolver.Cell;
+import fr.poulpogaz.nonogramssolver.Grid;
 import fr.poulpogaz.nonogramssolver.Nonogram;
 
 import java.util.Objects;
 
 public class CellWrapper {
 
-    private final int x;
-    private final int y;
-    private final Nonogram nonogram;
+    private int x;
+    private int y;
+    private Grid grid;
 
     private Description row;
     private Description column;
@@ -17,37 +18,67 @@ public class CellWrapper {
     private int status = Status.NO_CHANGE;
 
     public CellWrapper(Nonogram nonogram, int x, int y) {
-        this.nonogram = Objects.requireNonNull(nonogram);
+        this.grid = Objects.requireNonNull(nonogram).getGrid();
         this.x = x;
         this.y = y;
     }
 
+    /**
+     * Creates a wrapper which must be initialized with {@link #init(Grid, int, int)}
+     */
+    CellWrapper() {
+
+    }
+
+    /**
+     * Wraps another cell. The status is reset and the wrapper doesn't belong to any description
+     */
+    void init(Grid grid, int x, int y) {
+        this.grid = grid;
+        this.x = x;
+        this.y = y;
+        this.row = null;
+        this.column = null;
+        this.status = Status.NO_CHANGE;
+    }
+
     public boolean isEmpty() {
-        return nonogram.isEmpty(x, y);
+        return grid.isEmpty(x, y);
     }
 
     public boolean isFilled() {
-        return nonogram.isFilled(x, y);
+        return grid.isFilled(x, y);
     }
 
     public boolean isFilled(int color) {
-        return nonogram.isFilled(x, y, color);
+        return grid.isFilled(x, y, color);
     }
 
     public boolean isCrossed() {
-        return nonogram.isCrossed(x, y);
+        return grid.isCrossed(x, y);
+    }
+
+    public int getType() {
+        return grid.getType(x, y);
+    }
+
+    public int getColor() {
+        return grid.getColor(x, y);
     }
 
+    /**
+     * @return a copy of the cell
+     */
     public Cell get() {
-        return nonogram.get(x, y);
+        return grid.getCell(x, y);
     }
 
     public void setForce(int type, int color) {
-        get().set(type, color);
+        grid.set(x, y, type, color);
     }
 
     public void setForce(Cell cell) {
-        get().set(cell);
+        grid.set(x, y, cell);
     }
 
     public void set(int type) {
@@ -55,10 +86,10 @@ public class CellWrapper {
     }
 
     public void set(int type, int color) {
-        Cell current = nonogram.get(x, y);
+        int current = grid.getType(x, y);
 
-        if (current.getType() != type) {
-            if (!current.isEmpty()) {
+        if (current != type) {
+            if (current != Cell.EMPTY) {
                 // throw new IllegalStateException("Changing cell at (%d; %d) from %s to %s".formatted(x, y, this.cell, cell));
                 setContradiction();
 
@@ -69,7 +100,7 @@ public class CellWrapper {
                     column.setContradiction();
                 }
             } else {
-                current.set(type, color);
+                grid.set(x, y, type, color);
                 setChanged();
 
                 if (row != null) {
@@ -91,6 +122,10 @@ public class CellWrapper {
     }
 
     public void setChanged() {
+        if (!hasChanged()) {
+            addChanged(1);
+        }
+
         status = status | Status.CHANGED;
     }
 
@@ -107,9 +142,29 @@ public class CellWrapper {
     }
 
     public void resetStatus() {
+        if (hasChanged()) {
+            addChanged(-1);
+        }
+
         status = Status.NO_CHANGE;
     }
 
+    /**
+     * Updates the number of changed cells of the row and the column
+     */
+    private void addChanged(int delta) {
+        if (row != null) {
+            row.addChanged(delta);
+        }
+        if (column != null) {
+            column.addChanged(delta);
+        }
+    }
+
+    public Grid getGrid() {
+        return grid;
+    }
+
     public Description getRow() {
         return row;
     }
@@ -128,6 +183,6 @@ public class CellWrapper {
 
     @Override
     public String toString() {
-        return nonogram.get(x, y).toString();
+        return get().toString();
     }
 }
@@ -4,9 +4,9 @@ import fr.poulpogaz.nonogramssolver.Nonogram;
 
 public class Clue {
 
-    private final int length;
-    private final int color;
-    private final int index;
+    private int length;
+    private int color;
+    private int index;
     private int minI;
     private int maxI;
 
@@ -22,6 +22,17 @@ public class Clue {
         this.index = index;
     }
 
+    /**
+     * Reuses the clue for another description
+     */
+    void set(int length, int color, int index) {
+        this.length = length;
+        this.color = color;
+        this.index = index;
+        this.minI = 0;
+        this.maxI = 0;
+    }
+
     public int getLength() {
         return length;
     }
@@ -1,72 +1,199 @@
 package fr.poulpogaz.nonogramssolver.solver;
 
+import fr.poulpogaz.nonogramssolver.Grid;
 import fr.poulpogaz.nonogramssolver.Nonogram;
 
+/**
+ * A row or a column of a nonogram with its clues.
+ * A description can be reused by {@link NonogramSolver} for another line, see {@link #init(boolean, int, Nonogram.Clue[], CellWrapper[], int)}
+ */
 public class Description {
 
+    private static final int[] EMPTY_LINE = new int[0];
+
     /**
      * row if true, column if false
      */
-    private final boolean isRow;
-    private final int index;
-    
-    private final Clue[] clues;
-    private final CellWrapper[] cells;
+    private boolean isRow;
+    private int index;
+
+    /**
+     * Only the first nClues clues and the first size cells are used
+     */
+    private Clue[] clues;
+    private int nClues;
+    private CellWrapper[] cells;
+    private int size;
+
+    /**
+     * The line is read from the row-major or the column-major array of the grid,
+     * from offset (inclusive) to offset + size (exclusive)
+     */
+    private int[] line;
+    private int offset;
+    private Grid grid;
+
+    /**
+     * index of the line in the grid, it can be different from {@link #index}.
+     * -1 if the description doesn't cover a whole row or column
+     */
+    private int lineIndex;
 
     /**
      * the sum of all numbers and the empty cell between them
      */
-    private final int descriptionLength;
+    private int descriptionLength;
+
+    /**
+     * the number of filled cells in a solved line
+     */
+    private int filledLength;
     private int maxClue = -1;
 
     private int status = Status.CHANGED;
 
+    /**
+     * number of cells with the changed status
+     */
+    private int changed;
+
     public Description(boolean isRow, int index, Nonogram.Clue[] clues, CellWrapper[] cells) {
+        init(isRow, index, clues, cells, cells.length);
+    }
+
+    /**
+     * Creates a description which must be initialized with {@link #init(boolean, int, Nonogram.Clue[], CellWrapper[], int)}
+     */
+    Description() {
+
+    }
+
+    /**
+     * Initializes the description. The clue array is reused if it is large enough.
+     *
+     * @param cells cells of the line. Only the first size cells are used
+     */
+    void init(boolean isRow, int index, Nonogram.Clue[] clues, CellWrapper[] cells, int size) {
         this.isRow = isRow;
         this.index = index;
         this.cells = cells;
-        this.clues = new Clue[clues.length];
+        this.size = size;
+        this.nClues = clues.length;
+
+        if (this.clues == null || this.clues.length < clues.length) {
+            Clue[] old = this.clues;
+            this.clues = new Clue[clues.length];
+
+            if (old != null) {
+                System.arraycopy(old, 0, this.clues, 0, old.length);
+            }
+        }
 
         for (int i = 0; i < clues.length; i++) {
-            this.clues[i] = new Clue(clues[i], i);
+            if (this.clues[i] == null) {
+                this.clues[i] = new Clue(clues[i], i);
+            } else {
+                this.clues[i].set(clues[i].length(), clues[i].color(), i);
+            }
+        }
+
+        if (size == 0) {
+            line = EMPTY_LINE;
+            offset = 0;
+            grid = null;
+            lineIndex = -1;
+        } else {
+            grid = cells[0].getGrid();
+            int x = cells[0].getX();
+            int y = cells[0].getY();
+
+            if (isRow) {
+                line = grid.getRows();
+                offset = y * grid.getWidth() + x;
+                lineIndex = size == grid.getWidth() ? y : -1;
+            } else {
+                line = grid.getColumns();
+                offset = x * grid.getHeight() + y;
+                lineIndex = size == grid.getHeight() ? x : -1;
+            }
         }
 
-        descriptionLength = length(0, clues.length);
+        descriptionLength = length(0, nClues);
+        filledLength = descriptionLength - Math.max(nClues - 1, 0);
+        maxClue = -1;
         maxClue = getMaxClue();
+        status = Status.CHANGED;
+        changed = 0;
+
+        for (int i = 0; i < size; i++) {
+            CellWrapper w = cells[i];
 
-         for (CellWrapper w : cells) {
             if (isRow) {
                 w.setRow(this);
             } else {
                 w.setColumn(this);
             }
+
+            if (w.hasChanged()) {
+                changed++;
+            }
         }
     }
 
     public boolean isFilled(int i) {
-        return cells[i].isFilled();
+        return Grid.isCellFilled(line[offset + i]);
     }
 
     public boolean isFilled(int i, int color) {
-        return cells[i].isFilled(color);
+        return Grid.isCellFilled(line[offset + i], color);
     }
 
     public boolean isCrossed(int i) {
-        return cells[i].isCrossed();
+        return Grid.isCellCrossed(line[offset + i]);
     }
 
     public boolean isEmpty(int i) {
-        return cells[i].isEmpty();
+        return Grid.isCellEmpty(line[offset + i]);
+    }
+
+    public int getType(int i) {
+        return Grid.type(line[offset + i]);
+    }
+
+    public int getColor(int i) {
+        return Grid.color(line[offset + i]);
     }
 
     public int getClueLength(int i) {
         return clues[i].getLength();
     }
 
+    /**
+     * @return the number of filled cells in the line
+     */
+    public int countFilled() {
+        if (lineIndex < 0) {
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                if (isFilled(i)) {
+                    n++;
+                }
+            }
+
+            return n;
+        } else if (isRow) {
+            return grid.getFilledInRow(lineIndex);
+        } else {
+            return grid.getFilledInColumn(lineIndex);
+        }
+    }
+
     public boolean isCompleted() {
-        if (clues.length == 0) {
-            for (CellWrapper cell : cells) {
-                if (cell.isFilled()) {
+        if (countFilled() != filledLength) {
+            return false;
+        } else if (nClues == 0) {
+            for (int i = 0; i < size; i++) {
+                if (isFilled(i)) {
                     return false;
                 }
             }
@@ -74,7 +201,7 @@ public class Description {
             return true;
         } else {
             int pos = 0;
-            for (int i = 0; i < clues.length; i++) {
+            for (int i = 0; i < nClues; i++) {
                 Clue clue = clues[i];
                 pos = skipNotFilled(pos);
 
@@ -95,8 +222,8 @@ public class Description {
     }
 
     private int skipNotFilled(int i) {
-        for (; i < cells.length; i++) {
-            if (cells[i].isFilled()) {
+        for (; i < size; i++) {
+            if (isFilled(i)) {
                 return i;
             }
         }
@@ -106,8 +233,8 @@ public class Description {
 
     private int lineLength(int pos, int color) {
         int length = 0;
-        for (; pos < cells.length; pos++) {
-            if (cells[pos].isFilled(color)) {
+        for (; pos < size; pos++) {
+            if (isFilled(pos, color)) {
                 length++;
             } else {
                 break;
@@ -118,39 +245,49 @@ public class Description {
     }
 
 
+    /**
+     * @return the number of cells which aren't empty
+     */
     public int countSolved() {
-        int n = 0;
-
-        for (CellWrapper cell : cells) {
-            if (!cell.isEmpty()) {
-                n++;
+        if (lineIndex < 0) {
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                if (!isEmpty(i)) {
+                    n++;
+                }
             }
-        }
 
-        return n;
+            return n;
+        } else if (isRow) {
+            return grid.getSolvedInRow(lineIndex);
+        } else {
+            return grid.getSolvedInColumn(lineIndex);
+        }
     }
 
+    /**
+     * @return the number of cells with the changed status
+     */
     public int countChanged() {
-        int n = 0;
-
-        for (CellWrapper cell : cells) {
-            if (cell.hasChanged()) {
-                n++;
-            }
-        }
+        return changed;
+    }
 
-        return n;
+    /**
+     * Called by {@link CellWrapper} when the changed status of a cell is set or reset
+     */
+    void addChanged(int delta) {
+        changed += delta;
     }
 
     public double solvedRate() {
-        return (double) countSolved() / cells.length;
+        return (double) countSolved() / size;
     }
 
     private int getAvailableSpace() {
         int n = 0;
 
-        for (CellWrapper cell : cells) {
-            if (!cell.isCrossed()) {
+        for (int i = 0; i < size; i++) {
+            if (!isCrossed(i)) {
                 n++;
             }
         }
@@ -183,7 +320,7 @@ public class Description {
      * @return the available space
      */
     public int size() {
-        return cells.length;
+        return size;
     }
 
     public CellWrapper getCell(int index) {
@@ -203,7 +340,7 @@ public class Description {
     }
 
     public int nClues() {
-        return clues.length;
+        return nClues;
     }
 
     /**
@@ -213,18 +350,24 @@ public class Description {
         if (maxClue < 0) {
             maxClue = 0;
 
-            for (Clue clue : clues) {
-                maxClue = Math.max(maxClue, clue.getLength());
+            for (int i = 0; i < nClues; i++) {
+                maxClue = Math.max(maxClue, clues[i].getLength());
             }
         }
 
         return maxClue;
     }
 
+    /**
+     * @return the clues. The array can be longer than {@link #nClues()}
+     */
     public Clue[] getClues() {
         return clues;
     }
 
+    /**
+     * @return the cells. The array can be longer than {@link #size()}
+     */
     public CellWrapper[] getCells() {
         return cells;
     }
@@ -6,11 +6,19 @@ import fr.poulpogaz.nonogramssolver.Cell;
  *
  * @param x x position of the guess
  * @param y y position of the guess
- * @param cells a copy of the old cells except at x, y it is now filled or crossed
+ * @param type the type of the cell at x, y: filled or crossed
+ * @param mark the trail mark of the grid before the guess
  */
-public record Guess(int x, int y, Cell[][] cells) {
+public record Guess(int x, int y, int type, int mark) {
 
-    public Cell guess() {
-        return cells[y][x];
+    public boolean isFilled() {
+        return type == Cell.FILLED;
+    }
+
+    /**
+     * @return the same guess but crossed
+     */
+    public Guess crossed() {
+        return new Guess(x, y, Cell.CROSSED, mark);
     }
 }
@@ -0,0 +1,34 @@
+package fr.poulpogaz.nonogramssolver.solver;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A guess or the undo of a guess which lead to a contradiction
+ */
+@Name("fr.poulpogaz.nonogramssolver.Guess")
+@Label("Guess")
+@Category("Nonograms Solver")
+@jdk.jfr.Description("A cell is guessed, or a guess which lead to a contradiction is undone")
+@StackTrace(false)
+final class GuessEvent extends Event {
+
+    static final String GUESS = "guess";
+    static final String UNDO = "undo";
+
+    @Label("Action")
+    String action;
+
+    @Label("X")
+    int x;
+
+    @Label("Y")
+    int y;
+
+    @Label("Depth")
+    @jdk.jfr.Description("Number of nested guesses, including this one")
+    int depth;
+}
@@ -0,0 +1,38 @@
+package fr.poulpogaz.nonogramssolver.solver;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A call to the line solver. Only calls longer than the threshold are recorded
+ */
+@Name("fr.poulpogaz.nonogramssolver.LineSolve")
+@Label("Line Solve")
+@Category("Nonograms Solver")
+@jdk.jfr.Description("A call to the line solver which took longer than the threshold")
+@Threshold("1 ms")
+@StackTrace(false)
+final class LineSolveEvent extends Event {
+
+    @Label("Mode")
+    String mode;
+
+    @Label("Row")
+    boolean row;
+
+    @Label("Index")
+    int index;
+
+    @Label("Size")
+    int size;
+
+    @Label("Clues")
+    int clues;
+
+    @Label("Changed")
+    boolean changed;
+}
@@ -1,55 +1,151 @@
 package fr.poulpogaz.nonogramssolver.solver;
 
 import fr.poulpogaz.nonogramssolver.Cell;
+import fr.poulpogaz.nonogramssolver.Grid;
 import fr.poulpogaz.nonogramssolver.Nonogram;
 import fr.poulpogaz.nonogramssolver.linesolver.DefaultLineSolver;
 import fr.poulpogaz.nonogramssolver.linesolver.LineSolver;
-import fr.poulpogaz.nonogramssolver.utils.PriorityQueue;
+import fr.poulpogaz.nonogramssolver.utils.BucketQueue;
+import fr.poulpogaz.nonogramssolver.utils.IndexedHeap;
+import jdk.jfr.EventType;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.Arrays;
+import java.util.Objects;
 import java.util.Stack;
+import java.util.function.Supplier;
 
 public class NonogramSolver {
 
     private static final Logger LOGGER = LogManager.getLogger(NonogramSolver.class);
 
-    private static final int SOLVED = 0;
-    private static final int NOT_SOLVED = 1;
-    private static final int CONTRADICTION = 2;
+    static final int SOLVED = 0;
+    static final int NOT_SOLVED = 1;
+    static final int CONTRADICTION = 2;
+
+    /**
+     * Number of cells probed in parallel between two line solving passes.
+     * It doesn't depend on the number of threads, so the result doesn't either.
+     */
+    private static final int PROBING_BATCH_SIZE = 64;
+
+    /**
+     * Flight recorder events are only allocated when a recording enables them
+     */
+    private static final EventType PASS_EVENT = EventType.getEventType(PassEvent.class);
+    private static final EventType LINE_SOLVE_EVENT = EventType.getEventType(LineSolveEvent.class);
+    private static final EventType PROBE_EVENT = EventType.getEventType(ProbeEvent.class);
+    private static final EventType GUESS_EVENT = EventType.getEventType(GuessEvent.class);
+
+    private final LineSolver lineSolver;
+
+    /**
+     * Line solver used when searching for contradictions and when guessing
+     */
+    private final LineSolver deepLineSolver;
+
+    private int threads = 1;
+    private Supplier<? extends LineSolver> workerLineSolverFactory;
 
-    private final LineSolver lineSolver = new DefaultLineSolver();
     private Nonogram nonogram;
     private SolverListener listener;
 
+    /**
+     * Cells by row and by column. The solver reuses them for the next nonogram,
+     * so they can be larger than the current nonogram. The same applies to descriptions and queues.
+     */
     private CellWrapper[][] cells;
+    private CellWrapper[][] columnCells;
     private Description[] rows;
     private Description[] columns;
 
-    private PriorityQueue<Description> descriptionQueue;
-    private PriorityQueue<Contradiction> contradictionQueue;
-    private Contradiction[] contradictions;
+    /**
+     * Descriptions to solve, indexed by {@link #descriptionToIndex(Description)}
+     */
+    private IndexedHeap descriptionQueue;
+
+    /**
+     * Descriptions that changed during the current pass and that aren't in the queue.
+     * They are stored by their index, see {@link #descriptionToIndex(Description)},
+     * and added to the queue at the end of the pass.
+     */
+    private int[] pending;
+    private int pendingSize;
+    private boolean[] isPending;
+    /**
+     * Cells to probe, indexed by y * width + x
+     */
+    private BucketQueue contradictionQueue;
+
+    /**
+     * Statistics of the last call to solve, or of all the work done by a worker
+     */
+    private SolverStats stats = new SolverStats();
 
     public NonogramSolver() {
+        this(new DefaultLineSolver());
+    }
+
+    public NonogramSolver(LineSolver lineSolver) {
+        this(lineSolver, lineSolver);
+    }
 
+    public NonogramSolver(LineSolver lineSolver, LineSolver deepLineSolver) {
+        this.lineSolver = Objects.requireNonNull(lineSolver);
+        this.deepLineSolver = Objects.requireNonNull(deepLineSolver);
     }
 
-    public boolean solve(Nonogram nonogram, SolverListener listener, boolean contradiction, boolean recursive) {
+    /**
+     * @return the statistics of the solve, {@link SolverStats#isSolved()} tells if the nonogram was solved
+     */
+    public SolverStats solve(Nonogram nonogram, SolverListener listener, boolean contradiction, boolean recursive) {
+        stats = new SolverStats();
         initSolver(nonogram, listener);
+        long start = System.nanoTime();
 
         try {
-            Stack<Guess> guesses = new Stack<>();
+            stats.solved = search(contradiction, recursive);
+            return stats;
+        } finally {
+            stats.totalTime = System.nanoTime() - start;
+
+            LOGGER.debug("Solved? {}", isSolved());
+            cleanSolver();
+        }
+    }
+
+    private boolean search(boolean contradiction, boolean recursive) {
+        Stack<Guess> guesses = new Stack<>();
+        long recursionStart = -1; // set before the first guess
 
+        try {
             while (true) {
+                long lineSolvingStart = System.nanoTime();
                 int ret = solveWithLineSolver(guesses.size() > 0 ? SolverListener.RECURSION : SolverListener.LINE_SOLVING);
+                if (guesses.isEmpty()) {
+                    stats.time[SolverListener.LINE_SOLVING] += System.nanoTime() - lineSolvingStart;
+                }
 
                 if (ret == NOT_SOLVED) { // new guess
-                    if (contradiction && guesses.isEmpty() && solveContradiction()) {
-                        return true;
+                    if (contradiction && guesses.isEmpty()) {
+                        long contradictionStart = System.nanoTime();
+                        boolean solved = solveContradiction();
+                        stats.time[SolverListener.CONTRADICTION] += System.nanoTime() - contradictionStart;
+
+                        if (solved) {
+                            return true;
+                        }
                     }
                     if (!recursive) {
                         return false;
                     }
+                    if (recursionStart < 0) {
+                        recursionStart = System.nanoTime();
+                    }
+                    if (threads > 1 && guesses.isEmpty()) {
+                        return searchInParallel();
+                    }
 
                     Guess g = guess();
 
@@ -61,6 +157,8 @@ public class NonogramSolver {
                         }
                     } else {
                         guesses.push(g);
+                        stats.maxDepth = Math.max(stats.maxDepth, guesses.size());
+                        commitGuess(GuessEvent.GUESS, g.x(), g.y(), guesses.size());
                     }
 
                     LOGGER.debug("Guess stack size: {}", guesses.size());
@@ -74,104 +172,366 @@ public class NonogramSolver {
                     return true;
                 }
             }
-
         } finally {
-            LOGGER.debug("Solved? {}", isSolved());
-            cleanSolver();
+            if (recursionStart >= 0) {
+                stats.time[SolverListener.RECURSION] += System.nanoTime() - recursionStart;
+            }
         }
     }
 
+    /**
+     * Initializes a solver used by {@link ParallelProber}
+     */
+    void initWorker(Nonogram nonogram) {
+        stats = new SolverStats();
+        initSolver(nonogram, SolverListener.EMPTY_LISTENER);
+    }
+
+    /**
+     * Copies the grid of the coordinator and resets all statuses
+     */
+    void syncWorker(int[] grid) {
+        nonogram.getGrid().restore(grid);
+
+        for (int y = 0; y < height(); y++) {
+            for (int x = 0; x < width(); x++) {
+                cells[y][x].resetStatus();
+            }
+        }
+        resetDescriptionStatus();
+    }
+
+    /**
+     * Copies the grid of the coordinator, sets the cell at (x, y) then runs the line solver.
+     * Used by {@link ParallelSearch}.
+     *
+     * @param type type of the cell at (x, y) or {@link Cell#EMPTY} to only run the line solver
+     * @return {@link #SOLVED}, {@link #NOT_SOLVED} or {@link #CONTRADICTION}
+     */
+    int solveBranch(int[] grid, int x, int y, int type) {
+        syncWorker(grid);
+
+        if (type != Cell.EMPTY) {
+            set(type, x, y);
+        }
+
+        return solveWithLineSolver(SolverListener.RECURSION);
+    }
+
+    /**
+     * Probes a cell like {@link #contradictionAt(int, int)} then restores the grid.
+     *
+     * @return the result of contradictionAt in the two lowest bits and the type of
+     * the cell after contradictionAt in the other bits
+     */
+    int probe(int x, int y) {
+        int mark = nonogram.getGrid().mark();
+
+        int ret = contradictionAt(x, y);
+        int type = nonogram.getGrid().getType(x, y);
+
+        undo(mark);
+        resetDescriptionStatus();
+
+        return type << 2 | ret;
+    }
+
+    /**
+     * Buffers are kept between two calls to solve and are only reallocated
+     * when the nonogram is larger than all previous nonograms.
+     */
     private void initSolver(Nonogram nonogram, SolverListener listener) {
         this.nonogram = nonogram;
         this.listener = listener;
 
-        cells = new CellWrapper[height()][width()];
-        for (int y = 0; y < height(); y++) {
-            for (int x = 0; x < width(); x++) {
-                cells[y][x] = new CellWrapper(nonogram, x, y);
+        Grid grid = nonogram.getGrid();
+        grid.setTrailEnabled(true);
+
+        int width = width();
+        int height = height();
+
+        cells = ensureCapacity(cells, height, width);
+        columnCells = ensureCapacity(columnCells, width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                CellWrapper cell = cells[y][x];
+
+                if (cell == null) {
+                    cell = new CellWrapper();
+                    cells[y][x] = cell;
+                }
+
+                cell.init(grid, x, y);
+                columnCells[x][y] = cell;
             }
         }
 
-        rows = new Description[height()];
-        for (int y = 0; y < height(); y++) {
-            rows[y] = new Description(true, y, nonogram.getRows()[y], cells[y]);
+        rows = ensureCapacity(rows, height);
+        for (int y = 0; y < height; y++) {
+            rows[y].init(true, y, nonogram.getRows()[y], cells[y], width);
         }
 
-        columns = new Description[width()];
-        for (int x = 0; x < width(); x++) {
-            CellWrapper[] wrappers = new CellWrapper[height()];
+        columns = ensureCapacity(columns, width);
+        for (int x = 0; x < width; x++) {
+            columns[x].init(false, x, nonogram.getColumns()[x], columnCells[x], height);
+        }
+
+        int lines = width + height;
+        if (descriptionQueue == null || descriptionQueue.capacity() < lines) {
+            descriptionQueue = new IndexedHeap(lines);
+            pending = new int[lines];
+            isPending = new boolean[lines];
+            pendingSize = 0;
+        } else {
+            descriptionQueue.clear();
+            clearPending();
+        }
+
+        // see contradictionPriority: at most 4 adjacent cells are solved
+        int maxPriority = 5 * (width + height);
+        if (contradictionQueue == null ||
+                contradictionQueue.capacity() < width * height ||
+                contradictionQueue.getMaxPriority() < maxPriority) {
+            contradictionQueue = new BucketQueue(width * height, maxPriority);
+        } else {
+            contradictionQueue.clear();
+        }
+    }
+
+    private static CellWrapper[][] ensureCapacity(CellWrapper[][] array, int length, int innerLength) {
+        if (array == null) {
+            array = new CellWrapper[length][];
+        } else if (array.length < length) {
+            array = Arrays.copyOf(array, length);
+        }
 
-            for (int y = 0; y < height(); y++) {
-                wrappers[y] = cells[y][x];
+        for (int i = 0; i < length; i++) {
+            if (array[i] == null) {
+                array[i] = new CellWrapper[innerLength];
+            } else if (array[i].length < innerLength) {
+                array[i] = Arrays.copyOf(array[i], innerLength);
             }
+        }
+
+        return array;
+    }
 
-            columns[x] = new Description(false, x, nonogram.getColumns()[x], wrappers);
+    private static Description[] ensureCapacity(Description[] array, int length) {
+        int oldLength = 0;
+
+        if (array == null) {
+            array = new Description[length];
+        } else if (array.length < length) {
+            oldLength = array.length;
+            array = Arrays.copyOf(array, length);
+        } else {
+            return array;
         }
 
+        for (int i = oldLength; i < length; i++) {
+            array[i] = new Description();
+        }
 
-        descriptionQueue = new PriorityQueue<>(this::descriptionToIndex, rows.length + columns.length);
-        contradictionQueue = new PriorityQueue<>(this::contradictionToIndex, width() * height());
-        contradictions = new Contradiction[height() * width()];
+        return array;
     }
 
     private int descriptionToIndex(Description d) {
         if (d.isRow()) {
             return d.getIndex();
         } else {
-            return rows.length + d.getIndex();
+            return height() + d.getIndex();
         }
     }
 
-    private int contradictionToIndex(Contradiction c) {
-        return c.y * width() + c.x;
+    private Description indexToDescription(int index) {
+        if (index < height()) {
+            return rows[index];
+        } else {
+            return columns[index - height()];
+        }
     }
 
 
     private int solveWithLineSolver(int mode) {
+        LineSolver lineSolver = mode == SolverListener.LINE_SOLVING ? this.lineSolver : deepLineSolver;
+
         descriptionQueue.clear();
+        clearPending();
         fillDescription();
 
         while (!isSolved()) {
             boolean changed = false;
 
+            PassEvent pass = null;
+            if (PASS_EVENT.isEnabled()) {
+                pass = new PassEvent();
+                pass.begin();
+            }
+            long lineSolves = stats.lineSolves;
+            long linesChanged = stats.linesChanged;
+
             while (!descriptionQueue.isEmpty()) {
-                Description desc = descriptionQueue.poll();
+                Description desc = indexToDescription(descriptionQueue.poll());
 
+                LineSolveEvent event = null;
+                if (LINE_SOLVE_EVENT.isEnabled()) {
+                    event = new LineSolveEvent();
+                    event.begin();
+                }
                 lineSolver.trySolve(desc);
+                stats.lineSolves++;
+                commit(event, desc, mode);
 
                 if (desc.hasContradiction()) {
+                    commit(pass, mode, lineSolves, linesChanged, CONTRADICTION);
                     return CONTRADICTION;
                 }
 
                 if (desc.hasChanged()) {
+                    stats.linesChanged++;
                     listener.onLineSolved(nonogram, desc, mode);
                     updateDescriptionPriority(desc);
+                    addPending(desc);
 
                     changed = true;
                 }
             }
 
             if (!changed) {
+                commit(pass, mode, lineSolves, linesChanged, NOT_SOLVED);
                 return NOT_SOLVED;
             } else {
+                commit(pass, mode, lineSolves, linesChanged, SOLVED);
                 listener.onPassFinished(nonogram, mode);
-                fillDescription();
+                fillPendingDescription();
             }
         }
 
         return SOLVED;
     }
 
+    /**
+     * @param event null if the event is disabled
+     */
+    private void commit(LineSolveEvent event, Description desc, int mode) {
+        if (event != null && event.shouldCommit()) {
+            event.mode = modeName(mode);
+            event.row = desc.isRow();
+            event.index = desc.getIndex();
+            event.size = desc.size();
+            event.clues = desc.nClues();
+            event.changed = desc.hasChanged();
+            event.commit();
+        }
+    }
+
+    /**
+     * @param result {@link #CONTRADICTION}, {@link #NOT_SOLVED} or {@link #SOLVED} when the pass
+     *               changed cells: the event tells if the grid is solved or only changed
+     * @param event null if the event is disabled
+     */
+    private void commit(PassEvent event, int mode, long lineSolves, long linesChanged, int result) {
+        if (event != null && event.shouldCommit()) {
+            event.mode = modeName(mode);
+            event.lineSolves = stats.lineSolves - lineSolves;
+            event.linesChanged = stats.linesChanged - linesChanged;
+            event.result = switch (result) {
+                case CONTRADICTION -> "contradiction";
+                case NOT_SOLVED -> "not solved";
+                default -> isSolved() ? "solved" : "changed";
+            };
+            event.commit();
+        }
+    }
+
+    static String modeName(int mode) {
+        return switch (mode) {
+            case SolverListener.LINE_SOLVING -> "line solving";
+            case SolverListener.CONTRADICTION -> "contradiction";
+            case SolverListener.RECURSION -> "recursion";
+            default -> throw new IllegalArgumentException("Invalid mode: " + mode);
+        };
+    }
+
+    /**
+     * Commits a {@link GuessEvent}
+     */
+    static void commitGuess(String action, int x, int y, int depth) {
+        if (!GUESS_EVENT.isEnabled()) {
+            return;
+        }
+
+        GuessEvent event = new GuessEvent();
+
+        if (event.shouldCommit()) {
+            event.action = action;
+            event.x = x;
+            event.y = y;
+            event.depth = depth;
+            event.commit();
+        }
+    }
+
+    /**
+     * Adds to the pending descriptions the solved description and
+     * the crossing descriptions of the changed cells which aren't in the queue
+     */
+    private void addPending(Description solved) {
+        addPending(descriptionToIndex(solved));
+
+        for (int i = 0; i < solved.size(); i++) {
+            if (solved.getCell(i).hasChanged()) {
+                Description crossing = solved.isRow() ? columns[i] : rows[i];
+
+                if (!descriptionQueue.contains(descriptionToIndex(crossing))) {
+                    addPending(descriptionToIndex(crossing));
+                }
+            }
+        }
+    }
+
+    private void addPending(int index) {
+        if (!isPending[index]) {
+            isPending[index] = true;
+            pending[pendingSize++] = index;
+        }
+    }
+
+    /**
+     * Inserts the pending descriptions in the queue, rows first then columns,
+     * in the same order as {@link #fillDescription()}
+     */
+    private void fillPendingDescription() {
+        Arrays.sort(pending, 0, pendingSize);
+
+        for (int i = 0; i < pendingSize; i++) {
+            Description desc = indexToDescription(pending[i]);
+
+            if (desc.hasChanged()) {
+                descriptionQueue.insert(pending[i], descriptionPriority(desc));
+            }
+        }
+
+        clearPending();
+    }
+
+    private void clearPending() {
+        for (int i = 0; i < pendingSize; i++) {
+            isPending[pending[i]] = false;
+        }
+        pendingSize = 0;
+    }
+
     private void fillDescription() {
-        for (Description row : rows) {
-            if (row.hasChanged()) {
-                descriptionQueue.insert(row, descriptionPriority(row));
+        for (int y = 0; y < height(); y++) {
+            if (rows[y].hasChanged()) {
+                descriptionQueue.insert(descriptionToIndex(rows[y]), descriptionPriority(rows[y]));
             }
         }
 
-        for (Description col : columns) {
-            if (col.hasChanged()) {
-                descriptionQueue.insert(col, descriptionPriority(col));
+        for (int x = 0; x < width(); x++) {
+            if (columns[x].hasChanged()) {
+                descriptionQueue.insert(descriptionToIndex(columns[x]), descriptionPriority(columns[x]));
             }
         }
     }
@@ -185,8 +545,9 @@ public class NonogramSolver {
                 parallel = rows[i];
             }
 
-            if (descriptionQueue.contains(parallel)) {
-                descriptionQueue.setPriority(parallel, descriptionPriority(parallel));
+            int index = descriptionToIndex(parallel);
+            if (descriptionQueue.contains(index)) {
+                descriptionQueue.setPriority(index, descriptionPriority(parallel));
             }
         }
     }
@@ -198,6 +559,15 @@ public class NonogramSolver {
 
 
     private boolean solveContradiction() {
+        if (threads > 1) {
+            try (ParallelProber prober = new ParallelProber(nonogram, threads, workerLineSolverFactory)) {
+                boolean solved = solveContradictionInParallel(prober);
+                prober.addStats(stats);
+
+                return solved;
+            }
+        }
+
         LOGGER.debug("Solving contradictions");
 
         contradictionQueue.clear();
@@ -208,15 +578,20 @@ public class NonogramSolver {
             foundAContradiction = false;
 
             while (!contradictionQueue.isEmpty()) {
-                Contradiction c = contradictionQueue.poll();
+                int c = contradictionQueue.poll();
+                int x = c % width();
+                int y = c / width();
 
-                if (!nonogram.isEmpty(c.x(), c.y())) { // not empty -> continue!
+                if (!nonogram.isEmpty(x, y)) { // not empty -> continue!
                     continue;
                 }
 
-                int ret = contradictionAt(c.x(), c.y());
+                nonogram.getGrid().clearTrail(); // there is no guess, so older modifications will never be undone
+                int ret = contradictionAt(x, y);
+                stats.probes++;
 
                 if (ret == CONTRADICTION) {
+                    stats.contradictions++;
                     foundAContradiction = true;
                 } else if (ret == SOLVED) {
                     return true;
@@ -225,7 +600,7 @@ public class NonogramSolver {
                 listener.onContradiction(nonogram, ret == CONTRADICTION);
 
                 ret = solveWithLineSolver(SolverListener.LINE_SOLVING); // TODO: copy and check for contradiction
-                updateContradictionPriority(c);
+                updateContradictionPriority(x, y);
 
                 if (ret == CONTRADICTION) {
                     return false;
@@ -244,64 +619,191 @@ public class NonogramSolver {
         return false;
     }
 
+    /**
+     * Same as {@link #solveContradiction()} but cells are probed by batch of {@link #PROBING_BATCH_SIZE}.
+     * All cells of a batch are probed from the same grid, then the results are applied in the order of the batch.
+     */
+    private boolean solveContradictionInParallel(ParallelProber prober) {
+        LOGGER.debug("Solving contradictions with {} threads", threads);
+
+        contradictionQueue.clear();
+        fillContradiction();
+
+        int[] xs = new int[PROBING_BATCH_SIZE];
+        int[] ys = new int[PROBING_BATCH_SIZE];
+        int[] results = new int[PROBING_BATCH_SIZE];
+
+        boolean foundAContradiction;
+        do {
+            foundAContradiction = false;
+
+            while (!contradictionQueue.isEmpty()) {
+                int size = 0;
+                while (size < PROBING_BATCH_SIZE && !contradictionQueue.isEmpty()) {
+                    int c = contradictionQueue.poll();
+                    int x = c % width();
+                    int y = c / width();
+
+                    if (nonogram.isEmpty(x, y)) {
+                        xs[size] = x;
+                        ys[size] = y;
+                        size++;
+                    }
+                }
+
+                if (size == 0) {
+                    break;
+                }
+
+                nonogram.getGrid().clearTrail(); // there is no guess, so older modifications will never be undone
+                prober.probe(nonogram.getGrid().copy(), xs, ys, size, results);
+                stats.probes += size;
+
+                boolean solved = false;
+                for (int i = 0; i < size; i++) {
+                    int ret = results[i] & 0b11;
+
+                    if (ret != NOT_SOLVED) {
+                        set(results[i] >> 2, xs[i], ys[i]);
+                    }
+
+                    if (ret == CONTRADICTION) {
+                        stats.contradictions++;
+                        foundAContradiction = true;
+                    } else if (ret == SOLVED) {
+                        solved = true;
+                        break;
+                    }
+
+                    listener.onContradiction(nonogram, ret == CONTRADICTION);
+                }
+
+                int ret = solveWithLineSolver(solved ? SolverListener.CONTRADICTION : SolverListener.LINE_SOLVING);
+                for (int i = 0; i < size; i++) {
+                    updateContradictionPriority(xs[i], ys[i]);
+                }
+
+                if (ret == CONTRADICTION) {
+                    return false;
+                } else if (ret == SOLVED) {
+                    return true;
+                }
+            }
+
+            if (foundAContradiction) {
+                LOGGER.debug("Refilling contradictions");
+                fillContradiction();
+            }
+
+        } while (foundAContradiction);
+
+        return false;
+    }
+
+    /**
+     * Replaces the depth-first search of {@link #solve(Nonogram, SolverListener, boolean, boolean)}
+     * by a fork-join search
+     */
+    private boolean searchInParallel() {
+        LOGGER.debug("Guessing with {} threads", threads);
+
+        int[] solution;
+        try (ParallelSearch search = new ParallelSearch(nonogram, threads, workerLineSolverFactory)) {
+            solution = search.search(nonogram.getGrid().copy());
+            search.addStats(stats);
+        }
+
+        if (solution == null) {
+            return false;
+        }
+
+        nonogram.getGrid().restore(solution);
+        listener.onPassFinished(nonogram, SolverListener.RECURSION);
+
+        return true;
+    }
+
     private void fillContradiction() {
         for (int y = 0; y < height(); y++) {
             for (int x = 0; x < width(); x++) {
                 if (cells[y][x].isEmpty()) {
-                    Contradiction contradiction = new Contradiction(x, y);
-                    contradictions[y * width() + x] = contradiction;
-                    contradictionQueue.insert(contradiction, contradictionPriority(contradiction));
-                } else {
-                    contradictions[y * width() + x] = null;
+                    contradictionQueue.insert(y * width() + x, contradictionPriority(x, y));
                 }
             }
         }
     }
 
-    private int contradictionPriority(Contradiction a) {
-        return (rows[a.y()].size() + columns[a.x()].size()) * countAdjacentCellSolved(a.x(), a.y()) +
-                rows[a.y()].countSolved() +
-                columns[a.x()].countSolved();
+    private int contradictionPriority(int x, int y) {
+        return (rows[y].size() + columns[x].size()) * countAdjacentCellSolved(x, y) +
+                rows[y].countSolved() +
+                columns[x].countSolved();
     }
 
-    private void updateContradictionPriority(Contradiction from) {
+    private void updateContradictionPriority(int fromX, int fromY) {
         for (int y = 0; y < height(); y++) {
-            Contradiction c = contradictions[y * width() + from.x];
+            int c = y * width() + fromX;
 
-            if (c != null && contradictionQueue.contains(c)) {
-                contradictionQueue.setPriority(c, contradictionPriority(c));
+            if (contradictionQueue.contains(c)) {
+                contradictionQueue.setPriority(c, contradictionPriority(fromX, y));
             }
         }
 
         for (int x = 0; x < width(); x++) {
-            Contradiction c = contradictions[from.y * width() + x];
+            int c = fromY * width() + x;
 
-            if (c != null && contradictionQueue.contains(c)) {
-                contradictionQueue.setPriority(c, contradictionPriority(c));
+            if (contradictionQueue.contains(c)) {
+                contradictionQueue.setPriority(c, contradictionPriority(x, fromY));
             }
         }
     }
 
     private int contradictionAt(int x, int y) {
-        Cell[][] copy = copy();
+        if (!PROBE_EVENT.isEnabled()) {
+            return fillThenCross(x, y);
+        }
+
+        ProbeEvent event = new ProbeEvent();
+        event.begin();
+
+        int ret = fillThenCross(x, y);
+
+        if (event.shouldCommit()) {
+            event.x = x;
+            event.y = y;
+            event.outcome = switch (ret) {
+                case SOLVED -> "solved";
+                case CONTRADICTION -> "contradiction";
+                default -> "none";
+            };
+            event.commit();
+        }
+
+        return ret;
+    }
+
+    /**
+     * Fills the cell and runs the line solver. If nothing is found, crosses it and runs the line solver
+     */
+    private int fillThenCross(int x, int y) {
+        int mark = nonogram.getGrid().mark();
 
         set(Cell.FILLED, x, y);
 
         int ret = solveWithLineSolver(SolverListener.CONTRADICTION);
         if (ret == NOT_SOLVED) {
-            set(copy);
+            undo(mark);
             set(Cell.CROSSED, x, y);
 
             ret = solveWithLineSolver(SolverListener.CONTRADICTION);
             if (ret == NOT_SOLVED) {
-                set(copy);
+                undo(mark);
             } else if (ret == CONTRADICTION) {
-                set(copy);
+                undo(mark);
                 set(Cell.FILLED, x, y);
             }
 
         } else if (ret == CONTRADICTION) {
-            set(copy);
+            undo(mark);
             set(Cell.CROSSED, x, y);
         }
 
@@ -310,6 +812,29 @@ public class NonogramSolver {
 
 
     private Guess guess() {
+        int index = findGuess();
+
+        if (index < 0) {
+            LOGGER.debug("Cannot guess: no empty cell");
+            return null;
+        }
+
+        int xGuess = index % width();
+        int yGuess = index / width();
+
+        LOGGER.debug("Guessing {} at {} {}", Cell.FILLED, xGuess, yGuess);
+        int mark = nonogram.getGrid().mark();
+
+        set(Cell.FILLED, xGuess, yGuess);
+        stats.guesses++;
+
+        return new Guess(xGuess, yGuess, Cell.FILLED, mark);
+    }
+
+    /**
+     * @return the index in row-major order of the cell to guess or -1 if there is no empty cell
+     */
+    int findGuess() {
         int xGuess = -1;
         int yGuess = -1;
 
@@ -332,50 +857,36 @@ public class NonogramSolver {
         }
 
         if (xGuess < 0) {
-            LOGGER.debug("Cannot guess: no empty cell");
-            return null;
+            return -1;
         }
 
-        LOGGER.debug("Guessing {} at {} {}", Cell.FILLED, xGuess, yGuess);
-        Cell[][] copy = copy();
-        copy[yGuess][xGuess].setFilled();;
-
-        set(Cell.FILLED, xGuess, yGuess);
-
-        return new Guess(xGuess, yGuess, copy);
+        return yGuess * width() + xGuess;
     }
 
     private void undoGuess(Stack<Guess> guesses) {
         while (!guesses.isEmpty()) {
-            Guess g = guesses.peek();
+            Guess g = guesses.pop();
 
-            if (g.guess().isFilled()) {
+            if (g.isFilled()) {
+                stats.backtracks++;
+                commitGuess(GuessEvent.UNDO, g.x(), g.y(), guesses.size() + 1);
                 undoGuess(g);
+                guesses.push(g.crossed());
                 break;
             }
-
-            guesses.pop();
         }
     }
 
     private void undoGuess(Guess guess) {
-        LOGGER.debug("Undo guess: {} at ({}; {})", guess.guess(), guess.x(), guess.y());
-        set(guess.cells());
-
-        for (Description row : rows) {
-            row.resetStatus();
-        }
+        LOGGER.debug("Undo guess: FILLED at ({}; {})", guess.x(), guess.y());
+        undo(guess.mark());
 
-        for (Description cols : columns) {
-            cols.resetStatus();
-        }
+        resetDescriptionStatus();
 
         cells[guess.y()][guess.x()].setForce(Cell.CROSSED, 0);
         cells[guess.y()][guess.x()].setChanged();
         columns[guess.x()].setChanged();
         rows[guess.y()].setChanged();
-
-        guess.cells()[guess.y()][guess.x()].setCrossed();
     }
 
 
@@ -426,13 +937,29 @@ public class NonogramSolver {
         return cells[y][x].isCrossed();
     }
 
-    private void set(Cell[][] cells) {
+    private void resetDescriptionStatus() {
         for (int y = 0; y < height(); y++) {
-            for (int x = 0; x < width(); x++) {
-                this.cells[y][x].setForce(cells[y][x]);
-                this.cells[y][x].resetStatus();
-            }
+            rows[y].resetStatus();
         }
+
+        for (int x = 0; x < width(); x++) {
+            columns[x].resetStatus();
+        }
+    }
+
+    /**
+     * Undoes all modifications made since the mark was created.
+     * The status of the restored cells is reset.
+     */
+    private void undo(int mark) {
+        Grid grid = nonogram.getGrid();
+
+        for (int i = mark; i < grid.mark(); i++) {
+            int index = grid.getTrailIndex(i);
+            cells[index / width()][index % width()].resetStatus();
+        }
+
+        grid.undo(mark);
     }
 
     private void set(int type, int x, int y) {
@@ -451,7 +978,7 @@ public class NonogramSolver {
 
         for (int y = 0; y < height(); y++) {
             for (int x = 0; x < width(); x++) {
-                cells[y][x] = new Cell(this.cells[y][x].get());
+                cells[y][x] = this.cells[y][x].get();
             }
         }
 
@@ -462,24 +989,28 @@ public class NonogramSolver {
 
 
     private void cleanSolver() {
+        this.nonogram.getGrid().setTrailEnabled(false);
         this.nonogram = null;
-        this.cells = null;
-        this.columns = null;
-        this.rows = null;
         this.listener = null;
-        this.descriptionQueue = null;
-        this.contradictionQueue = null;
     }
 
+    /**
+     * Lines are only checked against their clues when the grid has no empty cell,
+     * so this is cheap while the grid is being solved
+     */
     private boolean isSolved() {
-        for (Description col : columns) {
-            if (!col.isCompleted()) {
+        if (nonogram.getGrid().getUnsolvedLines() > 0) {
+            return false;
+        }
+
+        for (int x = 0; x < width(); x++) {
+            if (!columns[x].isCompleted()) {
                 return false;
             }
         }
 
-        for (Description row : rows) {
-            if (!row.isCompleted()) {
+        for (int y = 0; y < height(); y++) {
+            if (!rows[y].isCompleted()) {
                 return false;
             }
         }
@@ -487,6 +1018,48 @@ public class NonogramSolver {
         return true;
     }
 
+    /**
+     * Searches contradictions and guesses with multiple threads.
+     * Each thread has its own copy of the grid and its own line solver, created by the factory.
+     * The result of the contradiction search doesn't depend on the number of threads. With a complete
+     * line solver, like {@link fr.poulpogaz.nonogramssolver.linesolver.DynamicLineSolver}, it is also
+     * the same as with one thread.
+     *
+     * @param threads number of threads. If it is 1, the solver only uses the current thread
+     * @param lineSolverFactory creates the line solver of each thread
+     */
+    public void setThreads(int threads, Supplier<? extends LineSolver> lineSolverFactory) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Number of threads must be positive");
+        }
+
+        this.threads = threads;
+        this.workerLineSolverFactory = Objects.requireNonNull(lineSolverFactory);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @return statistics of the last call to solve
+     */
+    public SolverStats getStats() {
+        return stats;
+    }
+
+    Grid getGrid() {
+        return nonogram.getGrid();
+    }
+
+    public LineSolver getLineSolver() {
+        return lineSolver;
+    }
+
+    public LineSolver getDeepLineSolver() {
+        return deepLineSolver;
+    }
+
     private int width() {
         return nonogram.getWidth();
     }
@@ -494,6 +1067,4 @@ public class NonogramSolver {
     private int height() {
         return nonogram.getHeight();
     }
-
-    private record Contradiction(int x, int y) {}
 }
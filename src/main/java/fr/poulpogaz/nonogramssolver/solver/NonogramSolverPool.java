@@ -0,0 +1,26 @@
+package fr.poulpogaz.nonogramssolver.solver;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Gives each thread its own {@link NonogramSolver}. A solver keeps its buffers between
+ * two nonograms, so a thread solving many nonograms only allocates them when a nonogram
+ * is larger than all the previous ones.
+ */
+public class NonogramSolverPool {
+
+    private final ThreadLocal<NonogramSolver> solvers;
+
+    public NonogramSolverPool(Supplier<NonogramSolver> factory) {
+        Objects.requireNonNull(factory);
+        this.solvers = ThreadLocal.withInitial(factory);
+    }
+
+    /**
+     * @return the solver of the current thread. It must not be shared with other threads
+     */
+    public NonogramSolver get() {
+        return solvers.get();
+    }
+}
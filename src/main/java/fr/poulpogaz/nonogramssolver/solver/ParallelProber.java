@@ -0,0 +1,94 @@
+package fr.poulpogaz.nonogramssolver.solver;
+
+import fr.poulpogaz.nonogramssolver.Nonogram;
+import fr.poulpogaz.nonogramssolver.linesolver.LineSolver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Probes cells with multiple threads. Each thread has a worker: a {@link NonogramSolver}
+ * with its own copy of the nonogram and its own line solver.
+ * Before probing a batch of cells, each worker copies the grid of the coordinator,
+ * so the result of a probe doesn't depend on the thread which made it.
+ */
+class ParallelProber implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final NonogramSolver[] workers;
+
+    ParallelProber(Nonogram nonogram, int threads, Supplier<? extends LineSolver> lineSolverFactory) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "probing-thread-" + threadNumber.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+
+        workers = new NonogramSolver[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new NonogramSolver(lineSolverFactory.get());
+            workers[i].initWorker(new Nonogram(nonogram));
+        }
+    }
+
+    /**
+     * Probes all cells in parallel
+     *
+     * @param grid the grid of the coordinator, see {@link fr.poulpogaz.nonogramssolver.Grid#copy()}
+     * @param xs x position of the cells to probe
+     * @param ys y position of the cells to probe
+     * @param size number of cells to probe
+     * @param results where the result of each probe is written, see {@link NonogramSolver#probe(int, int)}
+     */
+    void probe(int[] grid, int[] xs, int[] ys, int size, int[] results) {
+        AtomicInteger next = new AtomicInteger();
+
+        List<Callable<Void>> tasks = new ArrayList<>(workers.length);
+        for (NonogramSolver worker : workers) {
+            tasks.add(() -> {
+                worker.syncWorker(grid);
+
+                // the coordinator interrupts the workers when it is interrupted, see invokeAll
+                int i;
+                while (!Thread.currentThread().isInterrupted() && (i = next.getAndIncrement()) < size) {
+                    results[i] = worker.probe(xs[i], ys[i]);
+                }
+
+                return null;
+            });
+        }
+
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while probing", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to probe", e.getCause());
+        }
+    }
+
+    /**
+     * Adds the line solves made by the workers
+     */
+    void addStats(SolverStats stats) {
+        for (NonogramSolver worker : workers) {
+            stats.addLineSolves(worker.getStats());
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
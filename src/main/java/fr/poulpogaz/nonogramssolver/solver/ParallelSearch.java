@@ -0,0 +1,177 @@
+package fr.poulpogaz.nonogramssolver.solver;
+
+import fr.poulpogaz.nonogramssolver.Cell;
+import fr.poulpogaz.nonogramssolver.Nonogram;
+import fr.poulpogaz.nonogramssolver.linesolver.LineSolver;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * A fork-join version of the depth-first search of {@link NonogramSolver}.
+ * Each guess creates two tasks: one where the cell is filled and one where it is crossed.
+ * Idle threads steal these tasks.
+ * <br>
+ * A task only holds the grid of its parent and the guess. The work is done by the worker
+ * of the current thread: a {@link NonogramSolver} with its own copy of the nonogram and its own line solver.
+ * The first solution found stops all other tasks.
+ */
+class ParallelSearch implements AutoCloseable {
+
+    private final Nonogram nonogram;
+    private final Supplier<? extends LineSolver> lineSolverFactory;
+
+    private final ForkJoinPool pool;
+    private final ThreadLocal<NonogramSolver> workers = ThreadLocal.withInitial(this::createWorker);
+
+    /**
+     * All workers, to sum their statistics
+     */
+    private final Queue<NonogramSolver> allWorkers = new ConcurrentLinkedQueue<>();
+
+    private final AtomicReference<int[]> solution = new AtomicReference<>();
+    private final LongAdder guessCount = new LongAdder();
+    private final LongAdder backtrackCount = new LongAdder();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+
+    /**
+     * Stops all tasks, like a solution
+     */
+    private volatile boolean cancelled;
+
+    ParallelSearch(Nonogram nonogram, int threads, Supplier<? extends LineSolver> lineSolverFactory) {
+        this.nonogram = new Nonogram(nonogram);
+        this.lineSolverFactory = lineSolverFactory;
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    private NonogramSolver createWorker() {
+        NonogramSolver worker = new NonogramSolver(lineSolverFactory.get());
+        worker.initWorker(new Nonogram(nonogram));
+        allWorkers.add(worker);
+
+        return worker;
+    }
+
+    /**
+     * Unlike {@link ForkJoinPool#invoke(ForkJoinTask)}, the search stops when the current thread is interrupted.
+     *
+     * @param grid the grid to start from, see {@link fr.poulpogaz.nonogramssolver.Grid#copy()}
+     * @return the solved grid or null if there is no solution
+     */
+    int[] search(int[] grid) {
+        ForkJoinTask<Void> task = pool.submit(new GuessTask(grid, -1, -1, Cell.EMPTY, 0));
+
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            cancelled = true;
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while guessing", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to guess", e.getCause());
+        }
+
+        return solution.get();
+    }
+
+    /**
+     * Adds the guesses and the line solves made during the search
+     */
+    void addStats(SolverStats stats) {
+        stats.guesses += guessCount.sum();
+        stats.backtracks += backtrackCount.sum();
+        stats.maxDepth = Math.max(stats.maxDepth, maxDepth.get());
+
+        for (NonogramSolver worker : allWorkers) {
+            stats.addLineSolves(worker.getStats());
+        }
+    }
+
+    private boolean isStopped() {
+        return cancelled || solution.get() != null;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private class GuessTask extends RecursiveAction {
+
+        /**
+         * The grid before the guess. It is shared with the other branch and must not be modified
+         */
+        private final int[] grid;
+        private final int x;
+        private final int y;
+        private final int type;
+
+        /**
+         * Number of guesses made to reach this task, including this one
+         */
+        private final int depth;
+
+        public GuessTask(int[] grid, int x, int y, int type, int depth) {
+            this.grid = grid;
+            this.x = x;
+            this.y = y;
+            this.type = type;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (isStopped()) {
+                return;
+            }
+
+            NonogramSolver worker = workers.get();
+            int ret = worker.solveBranch(grid, x, y, type);
+
+            if (ret == NonogramSolver.SOLVED) {
+                solution.compareAndSet(null, worker.getGrid().copy());
+                return;
+            } else if (ret == NonogramSolver.CONTRADICTION) {
+                if (depth > 0) {
+                    backtrackCount.increment();
+                    NonogramSolver.commitGuess(GuessEvent.UNDO, x, y, depth);
+                }
+                return;
+            } else if (isStopped()) {
+                return;
+            }
+
+            int guess = worker.findGuess();
+            if (guess < 0) {
+                return;
+            }
+
+            int width = nonogram.getWidth();
+            guessCount.increment();
+            maxDepth.accumulateAndGet(depth + 1, Math::max);
+            NonogramSolver.commitGuess(GuessEvent.GUESS, guess % width, guess / width, depth + 1);
+
+            int[] after = worker.getGrid().copy();
+
+            GuessTask filled = new GuessTask(after, guess % width, guess / width, Cell.FILLED, depth + 1);
+            GuessTask crossed = new GuessTask(after, guess % width, guess / width, Cell.CROSSED, depth + 1);
+
+            crossed.fork();
+            filled.compute();
+
+            if (isStopped() && crossed.tryUnfork()) {
+                return;
+            }
+            crossed.join();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package fr.poulpogaz.nonogramssolver.solver;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A pass of {@link NonogramSolver}: all descriptions in the queue are given to the line solver
+ */
+@Name("fr.poulpogaz.nonogramssolver.Pass")
+@Label("Pass")
+@Category("Nonograms Solver")
+@jdk.jfr.Description("Descriptions in the queue are given to the line solver")
+@StackTrace(false)
+final class PassEvent extends Event {
+
+    @Label("Mode")
+    String mode;
+
+    @Label("Line Solves")
+    long lineSolves;
+
+    @Label("Lines Changed")
+    long linesChanged;
+
+    @Label("Result")
+    String result;
+}
@@ -0,0 +1,28 @@
+package fr.poulpogaz.nonogramssolver.solver;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A cell filled then crossed to search for a contradiction
+ */
+@Name("fr.poulpogaz.nonogramssolver.Probe")
+@Label("Probe")
+@Category("Nonograms Solver")
+@jdk.jfr.Description("A cell is filled then crossed to search for a contradiction")
+@StackTrace(false)
+final class ProbeEvent extends Event {
+
+    @Label("X")
+    int x;
+
+    @Label("Y")
+    int y;
+
+    @Label("Outcome")
+    @jdk.jfr.Description("contradiction if the cell is solved, solved if the nonogram is solved, otherwise none")
+    String outcome;
+}
@@ -0,0 +1,136 @@
+package fr.poulpogaz.nonogramssolver.solver;
+
+import java.util.Locale;
+
+/**
+ * Counters and timers filled by {@link NonogramSolver} while solving a nonogram.
+ * When the solver uses multiple threads, the work done by all threads is counted.
+ * <br>
+ * Time is measured per mode of {@link SolverListener}:
+ * <ul>
+ *     <li>{@link SolverListener#LINE_SOLVING}: line solving before the first guess,
+ *     without the line solving following a probe</li>
+ *     <li>{@link SolverListener#CONTRADICTION}: searching for contradictions</li>
+ *     <li>{@link SolverListener#RECURSION}: guessing, including the line solving after each guess</li>
+ * </ul>
+ */
+public class SolverStats {
+
+    boolean solved;
+
+    long lineSolves;
+    long linesChanged;
+    long probes;
+    long contradictions;
+    long guesses;
+    long backtracks;
+    int maxDepth;
+
+    final long[] time = new long[3];
+    long totalTime;
+
+    SolverStats() {
+
+    }
+
+    /**
+     * Adds the line solves of a worker
+     */
+    void addLineSolves(SolverStats worker) {
+        lineSolves += worker.lineSolves;
+        linesChanged += worker.linesChanged;
+    }
+
+    public boolean isSolved() {
+        return solved;
+    }
+
+    /**
+     * @return number of calls to the line solver
+     */
+    public long getLineSolves() {
+        return lineSolves;
+    }
+
+    /**
+     * @return number of calls to the line solver which changed at least one cell
+     */
+    public long getLinesChanged() {
+        return linesChanged;
+    }
+
+    /**
+     * @return number of cells probed while searching contradictions
+     */
+    public long getProbes() {
+        return probes;
+    }
+
+    /**
+     * @return number of probes which found a contradiction
+     */
+    public long getContradictions() {
+        return contradictions;
+    }
+
+    public long getGuesses() {
+        return guesses;
+    }
+
+    /**
+     * @return number of guesses abandoned because they lead to a contradiction
+     */
+    public long getBacktracks() {
+        return backtracks;
+    }
+
+    /**
+     * @return maximal number of nested guesses
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @param mode one of {@link SolverListener#LINE_SOLVING}, {@link SolverListener#CONTRADICTION}
+     *             or {@link SolverListener#RECURSION}
+     * @return time in nanoseconds spent in this mode
+     */
+    public long getTime(int mode) {
+        return time[mode];
+    }
+
+    public long getLineSolvingTime() {
+        return time[SolverListener.LINE_SOLVING];
+    }
+
+    public long getContradictionTime() {
+        return time[SolverListener.CONTRADICTION];
+    }
+
+    public long getRecursionTime() {
+        return time[SolverListener.RECURSION];
+    }
+
+    /**
+     * @return time in nanoseconds taken by {@link NonogramSolver#solve}
+     */
+    public long getTotalTime() {
+        return totalTime;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, """
+                        Solved: %b
+                        Line solves: %d (%d changed)
+                        Probes: %d (%d contradictions)
+                        Guesses: %d (%d backtracks, max depth %d)
+                        Line solving: %.3f ms
+                        Contradiction: %.3f ms
+                        Recursion: %.3f ms
+                        Total: %.3f ms""",
+                solved, lineSolves, linesChanged, probes, contradictions, guesses, backtracks, maxDepth,
+                getLineSolvingTime() / 1e6, getContradictionTime() / 1e6, getRecursionTime() / 1e6, totalTime / 1e6);
+    }
+}
@@ -0,0 +1,197 @@
+package fr.poulpogaz.nonogramssolver.utils;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A max priority queue of int keys between 0 (inclusive) and maxSize (exclusive)
+ * with int priorities between 0 (inclusive) and maxPriority (inclusive).
+ * <br>
+ * There is one bucket per priority: a doubly linked list of keys stored in arrays.
+ * insert, setPriority and contains are O(1). poll searches the highest non-empty bucket
+ * from the highest priority inserted, which is O(1) amortized when priorities mostly decrease.
+ * Keys with the same priority are polled in insertion order.
+ */
+public class BucketQueue {
+
+    private static final int NONE = -1;
+
+    private final int maxPriority;
+
+    /**
+     * first and last key of each bucket
+     */
+    private final int[] heads;
+    private final int[] tails;
+
+    private final int[] next;
+    private final int[] previous;
+
+    /**
+     * priority of each key, -1 if the key isn't in the queue
+     */
+    private final int[] priorities;
+
+    /**
+     * all buckets above are empty
+     */
+    private int top = NONE;
+    private int size = 0;
+
+    public BucketQueue(int maxSize, int maxPriority) {
+        if (maxPriority < 0) {
+            throw new IllegalArgumentException("Negative max priority");
+        }
+
+        this.maxPriority = maxPriority;
+        heads = new int[maxPriority + 1];
+        tails = new int[maxPriority + 1];
+        next = new int[maxSize];
+        previous = new int[maxSize];
+        priorities = new int[maxSize];
+
+        Arrays.fill(heads, NONE);
+        Arrays.fill(tails, NONE);
+        Arrays.fill(priorities, NONE);
+    }
+
+    /**
+     * O(n + p) complexity where n is the size of the queue and p the highest priority in the queue
+     */
+    public void clear() {
+        for (int p = top; p >= 0; p--) {
+            for (int key = heads[p]; key != NONE; key = next[key]) {
+                priorities[key] = NONE;
+            }
+
+            heads[p] = NONE;
+            tails[p] = NONE;
+        }
+
+        top = NONE;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the maximal size of the queue. Keys are between 0 (inclusive) and capacity (exclusive)
+     */
+    public int capacity() {
+        return priorities.length;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the key with the highest priority or -1 if the queue is empty
+     */
+    public int peek() {
+        if (isEmpty()) {
+            return NONE;
+        }
+
+        moveTop();
+        return heads[top];
+    }
+
+    /**
+     * Removes and returns the key with the highest priority
+     *
+     * @return the key or -1 if the queue is empty
+     */
+    public int poll() {
+        if (isEmpty()) {
+            return NONE;
+        }
+
+        moveTop();
+        int key = heads[top];
+        unlink(key);
+        priorities[key] = NONE;
+        size--;
+
+        return key;
+    }
+
+    public void insert(int key, int priority) {
+        if (priorities[key] != NONE) {
+            throw new IllegalStateException("Key " + key + " already in the queue");
+        }
+
+        link(key, priority);
+        size++;
+    }
+
+    public void setPriority(int key, int newPriority) {
+        if (priorities[key] == NONE) {
+            throw new NoSuchElementException();
+        }
+
+        if (priorities[key] != newPriority) {
+            unlink(key);
+            link(key, newPriority);
+        }
+    }
+
+    public int getPriority(int key) {
+        if (priorities[key] == NONE) {
+            throw new NoSuchElementException();
+        }
+
+        return priorities[key];
+    }
+
+    public boolean contains(int key) {
+        return priorities[key] != NONE;
+    }
+
+    public int getMaxPriority() {
+        return maxPriority;
+    }
+
+    private void moveTop() {
+        while (heads[top] == NONE) {
+            top--;
+        }
+    }
+
+    private void link(int key, int priority) {
+        if (priority < 0 || priority > maxPriority) {
+            throw new IllegalArgumentException("Priority out of bounds: " + priority);
+        }
+
+        priorities[key] = priority;
+        next[key] = NONE;
+        previous[key] = tails[priority];
+
+        if (tails[priority] == NONE) {
+            heads[priority] = key;
+        } else {
+            next[tails[priority]] = key;
+        }
+        tails[priority] = key;
+
+        top = Math.max(top, priority);
+    }
+
+    private void unlink(int key) {
+        int priority = priorities[key];
+
+        if (previous[key] == NONE) {
+            heads[priority] = next[key];
+        } else {
+            next[previous[key]] = next[key];
+        }
+
+        if (next[key] == NONE) {
+            tails[priority] = previous[key];
+        } else {
+            previous[next[key]] = previous[key];
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package fr.poulpogaz.nonogramssolver.utils;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A max-heap of int keys between 0 (inclusive) and maxSize (exclusive).
+ * Keys and priorities are stored in primitive arrays. The position of each key in the heap is
+ * stored too, so contains is O(1) and insert, poll and setPriority are O(log(n)).
+ */
+public class IndexedHeap {
+
+    private final int[] keys;
+    private final double[] priorities;
+
+    /**
+     * Position of each key in the heap, -1 if the key isn't in the heap
+     */
+    private final int[] positions;
+
+    private int size = 0;
+
+    public IndexedHeap(int maxSize) {
+        keys = new int[maxSize];
+        priorities = new double[maxSize];
+        positions = new int[maxSize];
+
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * O(n) complexity where n is the size of the heap
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[keys[i]] = -1;
+        }
+
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the maximal size of the heap. Keys are between 0 (inclusive) and capacity (exclusive)
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the key with the highest priority or -1 if the heap is empty
+     */
+    public int peek() {
+        if (isEmpty()) {
+            return -1;
+        } else {
+            return keys[0];
+        }
+    }
+
+    /**
+     * Removes and returns the key with the highest priority
+     *
+     * @return the key or -1 if the heap is empty
+     */
+    public int poll() {
+        if (isEmpty()) {
+            return -1;
+        } else {
+            size--;
+            swap(0, size);
+            shiftDown(0);
+
+            int key = keys[size];
+            positions[key] = -1;
+
+            return key;
+        }
+    }
+
+    public void insert(int key, double priority) {
+        if (size >= keys.length) {
+            throw new IllegalStateException("Buffer overflow");
+        }
+        if (positions[key] >= 0) {
+            throw new IllegalStateException("Key " + key + " already in the heap");
+        }
+
+        keys[size] = key;
+        priorities[size] = priority;
+        positions[key] = size;
+        size++;
+        shiftUp(size - 1);
+    }
+
+    public void setPriority(int key, double newPriority) {
+        int i = positions[key];
+
+        if (i < 0) {
+            throw new NoSuchElementException();
+        }
+
+        double old = priorities[i];
+        priorities[i] = newPriority;
+
+        if (old < newPriority) {
+            shiftUp(i);
+        } else if (old > newPriority) {
+            shiftDown(i);
+        }
+    }
+
+    public double getPriority(int key) {
+        int i = positions[key];
+
+        if (i < 0) {
+            throw new NoSuchElementException();
+        }
+
+        return priorities[i];
+    }
+
+    /**
+     * O(1) complexity
+     */
+    public boolean contains(int key) {
+        return positions[key] >= 0;
+    }
+
+    private void shiftUp(int node) {
+        int ancestor = ancestor(node);
+
+        while (node != 0 && priorities[ancestor] < priorities[node]) {
+            swap(node, ancestor);
+            node = ancestor;
+            ancestor = ancestor(node);
+        }
+    }
+
+    private void shiftDown(int node) {
+        while (true) {
+            int child = node;
+            int leftChild = leftChild(node);
+            int rightChild = rightChild(node);
+
+            if (leftChild < size && priorities[leftChild] > priorities[child]) {
+                child = leftChild;
+            }
+            if (rightChild < size && priorities[rightChild] > priorities[child]) {
+                child = rightChild;
+            }
+
+            if (child == node) {
+                break;
+            }
+
+            swap(child, node);
+            node = child;
+        }
+    }
+
+    private int leftChild(int i) {
+        return 2 * i + 1;
+    }
+
+    private int rightChild(int i) {
+        return 2 * i + 2;
+    }
+
+    private int ancestor(int i) {
+        return (i - 1) / 2;
+    }
+
+    private void swap(int i, int j) {
+        int key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+
+        double priority = priorities[i];
+        priorities[i] = priorities[j];
+        priorities[j] = priority;
+
+        positions[keys[i]] = i;
+        positions[keys[j]] = j;
+    }
+}
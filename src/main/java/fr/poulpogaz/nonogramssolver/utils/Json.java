@@ -0,0 +1,249 @@
+package fr.poulpogaz.nonogramssolver.utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A minimal json parser and writer helpers.
+ * Objects are parsed to {@link Map}, arrays to {@link List}, numbers to {@link Double} or {@link Long},
+ * strings to {@link String}, booleans to {@link Boolean} and null to null.
+ */
+public class Json {
+
+    private final String str;
+    private int pos;
+
+    private Json(String str) {
+        this.str = str;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the string isn't valid json
+     */
+    public static Object parse(String str) {
+        Json json = new Json(str);
+        Object value = json.readValue();
+        json.skipWhitespaces();
+
+        if (json.pos < str.length()) {
+            throw json.error("Unexpected character");
+        }
+
+        return value;
+    }
+
+    /**
+     * @return the string without the quotes and with the special characters escaped
+     */
+    public static String escape(String str) {
+        StringBuilder sb = new StringBuilder(str.length());
+
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * @return the string between quotes and with the special characters escaped
+     */
+    public static String quote(String str) {
+        return '"' + escape(str) + '"';
+    }
+
+    private Object readValue() {
+        skipWhitespaces();
+
+        if (pos >= str.length()) {
+            throw error("Unexpected end of input");
+        }
+
+        char c = str.charAt(pos);
+        return switch (c) {
+            case '{' -> readObject();
+            case '[' -> readArray();
+            case '"' -> readString();
+            case 't' -> readLiteral("true", Boolean.TRUE);
+            case 'f' -> readLiteral("false", Boolean.FALSE);
+            case 'n' -> readLiteral("null", null);
+            default -> {
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    yield readNumber();
+                } else {
+                    throw error("Unexpected character");
+                }
+            }
+        };
+    }
+
+    private Map<String, Object> readObject() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        pos++;
+
+        skipWhitespaces();
+        if (peek() == '}') {
+            pos++;
+            return map;
+        }
+
+        while (true) {
+            skipWhitespaces();
+            if (peek() != '"') {
+                throw error("Expecting a key");
+            }
+
+            String key = readString();
+            skipWhitespaces();
+            expect(':');
+            map.put(key, readValue());
+
+            skipWhitespaces();
+            if (peek() == ',') {
+                pos++;
+            } else {
+                expect('}');
+                return map;
+            }
+        }
+    }
+
+    private List<Object> readArray() {
+        List<Object> list = new ArrayList<>();
+        pos++;
+
+        skipWhitespaces();
+        if (peek() == ']') {
+            pos++;
+            return list;
+        }
+
+        while (true) {
+            list.add(readValue());
+
+            skipWhitespaces();
+            if (peek() == ',') {
+                pos++;
+            } else {
+                expect(']');
+                return list;
+            }
+        }
+    }
+
+    private String readString() {
+        StringBuilder sb = new StringBuilder();
+        pos++;
+
+        while (true) {
+            if (pos >= str.length()) {
+                throw error("Unterminated string");
+            }
+
+            char c = str.charAt(pos++);
+            if (c == '"') {
+                return sb.toString();
+            } else if (c != '\\') {
+                sb.append(c);
+            } else if (pos >= str.length()) {
+                throw error("Unterminated string");
+            } else {
+                char escaped = str.charAt(pos++);
+
+                switch (escaped) {
+                    case '"', '\\', '/' -> sb.append(escaped);
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'u' -> {
+                        if (pos + 4 > str.length()) {
+                            throw error("Invalid unicode escape");
+                        }
+
+                        try {
+                            sb.append((char) Integer.parseInt(str, pos, pos + 4, 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Invalid unicode escape");
+                        }
+                        pos += 4;
+                    }
+                    default -> throw error("Invalid escape");
+                }
+            }
+        }
+    }
+
+    private Object readNumber() {
+        int start = pos;
+        boolean decimal = false;
+
+        while (pos < str.length()) {
+            char c = str.charAt(pos);
+
+            if (c == '.' || c == 'e' || c == 'E') {
+                decimal = true;
+            } else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+                break;
+            }
+            pos++;
+        }
+
+        String number = str.substring(start, pos);
+        try {
+            if (decimal) {
+                return Double.parseDouble(number);
+            } else {
+                return Long.parseLong(number);
+            }
+        } catch (NumberFormatException e) {
+            throw error("Invalid number: " + number);
+        }
+    }
+
+    private Object readLiteral(String literal, Object value) {
+        if (!str.startsWith(literal, pos)) {
+            throw error("Unexpected character");
+        }
+
+        pos += literal.length();
+        return value;
+    }
+
+    private void skipWhitespaces() {
+        while (pos < str.length() && Character.isWhitespace(str.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private char peek() {
+        if (pos >= str.length()) {
+            throw error("Unexpected end of input");
+        }
+
+        return str.charAt(pos);
+    }
+
+    private void expect(char c) {
+        if (peek() != c) {
+            throw error("Expecting '" + c + "'");
+        }
+
+        pos++;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at " + pos);
+    }
+}
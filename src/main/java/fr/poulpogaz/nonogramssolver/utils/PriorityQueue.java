@@ -6,7 +6,9 @@ import java.util.function.Function;
 
 /**
  * A priority queue that guarantees O(log(n)) complexity for all operations except clear...
+ * @deprecated elements are boxed and wrapped in nodes, use {@link IndexedHeap}
  */
+@Deprecated
 public class PriorityQueue<E> {
 
     private final Node<E>[] nodes;
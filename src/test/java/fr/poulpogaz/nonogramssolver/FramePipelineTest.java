@@ -0,0 +1,206 @@
+package fr.poulpogaz.nonogramssolver;
+
+import fr.poulpogaz.nonogramssolver.reader.ImageReader;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.FileImageOutputStream;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FramePipelineTest {
+
+    @Test
+    void blockTest() throws IOException {
+        Nonogram nonogram = new ImageReader().read(Path.of("example", "007.png"), true, null);
+        Grid grid = nonogram.getGrid();
+
+        List<BufferedImage> images = new ArrayList<>();
+        FramePipeline.FrameRenderer renderer = FramePipeline.FrameRenderer.of(NonogramRenderer.DEFAULT, 4);
+        FramePipeline pipeline = new FramePipeline(nonogram, renderer, (image, x, y) -> images.add(image),
+                1, FramePipeline.Policy.BLOCK, false);
+
+        // one frame per filled cell of the first row
+        List<BufferedImage> expected = new ArrayList<>();
+        for (int x = 0; x < grid.getWidth(); x++) {
+            grid.set(x, 0, Cell.FILLED, 0);
+            pipeline.submit(nonogram);
+            expected.add(NonogramRenderer.DEFAULT.asImage(nonogram, 4));
+        }
+        pipeline.close();
+
+        assertEquals(grid.getWidth(), pipeline.getSubmitted());
+        assertEquals(0, pipeline.getDropped());
+        assertEquals(expected.size(), images.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertImageEquals(expected.get(i), images.get(i));
+        }
+
+        assertThrows(IllegalStateException.class, () -> pipeline.submit(nonogram));
+    }
+
+    @Test
+    void dropTest() throws IOException, InterruptedException {
+        Nonogram nonogram = new ImageReader().read(Path.of("example", "007.png"), true, null);
+        Grid grid = nonogram.getGrid();
+
+        CountDownLatch latch = new CountDownLatch(1);
+        List<BufferedImage> images = new ArrayList<>();
+        FramePipeline.FrameRenderer renderer = FramePipeline.FrameRenderer.of(NonogramRenderer.DEFAULT, 4);
+        FramePipeline pipeline = new FramePipeline(nonogram, renderer, (image, x, y) -> {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            images.add(image);
+        }, 2, FramePipeline.Policy.DROP, false);
+
+        // the writer is blocked: frames are dropped instead of blocking the caller
+        for (int x = 0; x < grid.getWidth(); x++) {
+            grid.set(x, 0, Cell.FILLED, 0);
+            pipeline.submit(nonogram);
+        }
+        BufferedImage last = NonogramRenderer.DEFAULT.asImage(nonogram, 4);
+        latch.countDown();
+        pipeline.close();
+
+        assertTrue(pipeline.getDropped() > 0);
+        assertEquals(pipeline.getSubmitted(), images.size() + pipeline.getDropped());
+        assertImageEquals(last, images.get(images.size() - 1));
+    }
+
+    @Test
+    void failureTest() throws IOException {
+        Nonogram nonogram = new ImageReader().read(Path.of("example", "007.png"), true, null);
+
+        FramePipeline.FrameRenderer renderer = FramePipeline.FrameRenderer.of(NonogramRenderer.DEFAULT, 4);
+        FramePipeline pipeline = new FramePipeline(nonogram, renderer, (image, x, y) -> {
+            throw new IOException("disk full");
+        }, 1, FramePipeline.Policy.BLOCK, false);
+
+        for (int i = 0; i < 10; i++) {
+            pipeline.submit(nonogram);
+        }
+
+        IOException e = assertThrows(IOException.class, pipeline::close);
+        assertEquals("disk full", e.getMessage());
+    }
+
+    @Test
+    void regionsTest() throws IOException {
+        for (int squareSize : new int[] {3, 8}) {
+            Nonogram nonogram = new ImageReader().read(Path.of("example", "007.png"), true, null);
+            Grid grid = nonogram.getGrid();
+
+            // draws each region on top of the previous frame
+            List<BufferedImage> frames = new ArrayList<>();
+            FramePipeline.FrameRenderer renderer = FramePipeline.FrameRenderer.of(NonogramRenderer.DEFAULT, squareSize);
+            FramePipeline pipeline = new FramePipeline(nonogram, renderer, (image, x, y) -> {
+                BufferedImage frame = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+                if (!frames.isEmpty()) {
+                    BufferedImage last = frames.get(frames.size() - 1);
+                    frame = new BufferedImage(last.getWidth(), last.getHeight(), BufferedImage.TYPE_INT_RGB);
+                    frame.setData(last.getData());
+                }
+
+                Graphics2D g2d = frame.createGraphics();
+                g2d.drawImage(image, x, y, null);
+                g2d.dispose();
+                frames.add(frame);
+            }, 4, FramePipeline.Policy.BLOCK, true);
+
+            List<BufferedImage> expected = new ArrayList<>();
+            pipeline.submit(nonogram);
+            expected.add(NonogramRenderer.DEFAULT.asImage(nonogram, squareSize));
+
+            // corners, touching the clues and the border, then the middle
+            int w = grid.getWidth() - 1;
+            int h = grid.getHeight() - 1;
+            int[][] changes = {{0, 0}, {w, h}, {w, 0}, {0, h}, {w / 2, h / 2}, {w / 2 + 1, h / 2 + 2}};
+            for (int[] c : changes) {
+                grid.set(c[0], c[1], Cell.FILLED, 0);
+                pipeline.submit(nonogram);
+                expected.add(NonogramRenderer.DEFAULT.asImage(nonogram, squareSize));
+
+                grid.set(c[0], c[1], Cell.CROSSED, 0);
+                pipeline.submit(nonogram);
+                expected.add(NonogramRenderer.DEFAULT.asImage(nonogram, squareSize));
+            }
+
+            // no change: skipped
+            pipeline.submit(nonogram);
+            pipeline.close();
+
+            assertEquals(expected.size(), frames.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertImageEquals(expected.get(i), frames.get(i));
+            }
+        }
+    }
+
+    @Test
+    void gifRegionTest() throws IOException {
+        Path file = Files.createTempFile("frames", ".gif");
+
+        try {
+            try (ImageOutputStream ios = new FileImageOutputStream(file.toFile())) {
+                GifSequenceWriter writer = new GifSequenceWriter(ios, BufferedImage.TYPE_INT_RGB, 10, false);
+                writer.writeToSequence(new BufferedImage(40, 30, BufferedImage.TYPE_INT_RGB));
+                writer.writeToSequence(new BufferedImage(5, 6, BufferedImage.TYPE_INT_RGB), 12, 7);
+                writer.writeToSequence(new BufferedImage(40, 30, BufferedImage.TYPE_INT_RGB));
+                writer.close();
+            }
+
+            javax.imageio.ImageReader reader = ImageIO.getImageReadersBySuffix("gif").next();
+            try (ImageInputStream iis = ImageIO.createImageInputStream(file.toFile())) {
+                reader.setInput(iis);
+
+                assertEquals(3, reader.getNumImages(true));
+                assertDescriptorEquals(reader, 0, 0, 0, 40, 30);
+                assertDescriptorEquals(reader, 1, 12, 7, 5, 6);
+                assertDescriptorEquals(reader, 2, 0, 0, 40, 30);
+            } finally {
+                reader.dispose();
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private void assertDescriptorEquals(javax.imageio.ImageReader reader, int index,
+                                        int x, int y, int width, int height) throws IOException {
+        IIOMetadataNode root = (IIOMetadataNode) reader.getImageMetadata(index)
+                .getAsTree("javax_imageio_gif_image_1.0");
+        IIOMetadataNode descriptor = (IIOMetadataNode) root.getElementsByTagName("ImageDescriptor").item(0);
+        IIOMetadataNode control = (IIOMetadataNode) root.getElementsByTagName("GraphicControlExtension").item(0);
+
+        assertEquals(Integer.toString(x), descriptor.getAttribute("imageLeftPosition"));
+        assertEquals(Integer.toString(y), descriptor.getAttribute("imageTopPosition"));
+        assertEquals(Integer.toString(width), descriptor.getAttribute("imageWidth"));
+        assertEquals(Integer.toString(height), descriptor.getAttribute("imageHeight"));
+        assertEquals("doNotDispose", control.getAttribute("disposalMethod"));
+    }
+
+    private void assertImageEquals(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package fr.poulpogaz.nonogramssolver;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GridTest {
+
+    @Test
+    void setTest() {
+        Grid grid = new Grid(3, 2);
+        grid.set(2, 1, Cell.FILLED, 5);
+        grid.set(1, 0, Cell.CROSSED, 5);
+
+        assertTrue(grid.isFilled(2, 1));
+        assertTrue(grid.isFilled(2, 1, 5));
+        assertFalse(grid.isFilled(2, 1, 4));
+        assertEquals(5, grid.getColor(2, 1));
+
+        assertTrue(grid.isCrossed(1, 0));
+        assertEquals(0, grid.getColor(1, 0));
+        assertTrue(grid.isEmpty(0, 0));
+
+        assertEquals(grid.get(2, 1), grid.getRows()[1 * 3 + 2]);
+        assertEquals(grid.get(2, 1), grid.getColumns()[2 * 2 + 1]);
+        assertEquals(grid.get(1, 0), grid.getColumns()[1 * 2]);
+    }
+
+    @Test
+    void copyTest() {
+        Grid grid = new Grid(4, 3);
+        grid.set(0, 2, Cell.FILLED, 1);
+
+        int[] copy = grid.copy();
+        grid.set(3, 1, Cell.CROSSED, 0);
+        grid.set(0, 2, Cell.EMPTY, 0);
+
+        grid.restore(copy);
+        assertTrue(grid.isEmpty(3, 1));
+        assertTrue(grid.isFilled(0, 2, 1));
+        assertEquals(Cell.EMPTY, grid.getColumns()[3 * 3 + 1]);
+        assertEquals(Grid.pack(Cell.FILLED, 1), grid.getColumns()[2]);
+    }
+
+    @Test
+    void trailTest() {
+        Grid grid = new Grid(3, 3);
+        grid.set(0, 0, Cell.FILLED, 0); // not recorded
+        grid.setTrailEnabled(true);
+
+        int mark1 = grid.mark();
+        grid.set(1, 1, Cell.FILLED, 2);
+        grid.set(2, 0, Cell.CROSSED, 0);
+
+        int mark2 = grid.mark();
+        grid.set(1, 1, Cell.CROSSED, 0);
+        grid.set(0, 2, Cell.FILLED, 1);
+        grid.set(0, 2, Cell.FILLED, 1); // same value, not recorded
+        assertEquals(mark2 + 2, grid.mark());
+
+        grid.undo(mark2);
+        assertTrue(grid.isFilled(1, 1, 2));
+        assertTrue(grid.isEmpty(0, 2));
+        assertEquals(Cell.EMPTY, grid.getColumns()[2]);
+        assertEquals(grid.get(1, 1), grid.getColumns()[4]);
+
+        grid.undo(mark1);
+        assertTrue(grid.isEmpty(1, 1));
+        assertTrue(grid.isEmpty(2, 0));
+        assertTrue(grid.isFilled(0, 0));
+        assertEquals(Cell.EMPTY, grid.getColumns()[2 * 3]);
+
+        assertThrows(IllegalArgumentException.class, () -> grid.undo(mark2));
+    }
+
+    @Test
+    void filledCountTest() {
+        Grid grid = new Grid(3, 2);
+        grid.setTrailEnabled(true);
+        grid.set(0, 0, Cell.FILLED, 0);
+        grid.set(1, 0, Cell.FILLED, 1);
+        grid.set(1, 1, Cell.CROSSED, 0);
+        assertEquals(2, grid.getFilledInRow(0));
+        assertEquals(0, grid.getFilledInRow(1));
+        assertEquals(1, grid.getFilledInColumn(1));
+
+        int mark = grid.mark();
+        grid.set(1, 0, Cell.FILLED, 2); // color change
+        grid.set(1, 1, Cell.FILLED, 0);
+        grid.set(0, 0, Cell.CROSSED, 0);
+        assertEquals(1, grid.getFilledInRow(0));
+        assertEquals(1, grid.getFilledInRow(1));
+        assertEquals(2, grid.getFilledInColumn(1));
+        assertEquals(0, grid.getFilledInColumn(0));
+
+        int[] copy = grid.copy();
+        grid.undo(mark);
+        assertEquals(2, grid.getFilledInRow(0));
+        assertEquals(0, grid.getFilledInRow(1));
+        assertEquals(1, grid.getFilledInColumn(1));
+        assertEquals(1, grid.getFilledInColumn(0));
+
+        grid.restore(copy);
+        assertEquals(1, grid.getFilledInRow(0));
+        assertEquals(1, grid.getFilledInRow(1));
+        assertEquals(2, grid.getFilledInColumn(1));
+        assertEquals(0, grid.getFilledInColumn(0));
+    }
+
+    @Test
+    void unsolvedLinesTest() {
+        Grid grid = new Grid(2, 2);
+        grid.setTrailEnabled(true);
+        assertEquals(4, grid.getUnsolvedLines());
+
+        grid.set(0, 0, Cell.FILLED, 0);
+        grid.set(1, 0, Cell.CROSSED, 0);
+        assertEquals(3, grid.getUnsolvedLines()); // row 0
+
+        int mark = grid.mark();
+        grid.set(0, 1, Cell.CROSSED, 0);
+        grid.set(1, 1, Cell.FILLED, 0);
+        grid.set(1, 1, Cell.CROSSED, 0); // still solved
+        assertEquals(0, grid.getUnsolvedLines());
+
+        int[] copy = grid.copy();
+        grid.undo(mark);
+        assertEquals(3, grid.getUnsolvedLines());
+
+        grid.restore(copy);
+        assertEquals(0, grid.getUnsolvedLines());
+
+        grid.set(0, 0, Cell.EMPTY, 0);
+        assertEquals(2, grid.getUnsolvedLines()); // row 0 and column 0
+
+        grid.clear();
+        assertEquals(4, grid.getUnsolvedLines());
+    }
+
+    @Test
+    void facadeTest() {
+        Nonogram.Builder builder = new Nonogram.Builder();
+        builder.setWidth(2);
+        builder.setHeight(2);
+        for (int i = 0; i < 2; i++) {
+            builder.setNumberOfClue(i, true, 0);
+            builder.setNumberOfClue(i, false, 0);
+        }
+
+        Nonogram nonogram = builder.build();
+        nonogram.set(1, 0, Cell.FILLED, 0);
+
+        Cell cell = nonogram.get(1, 0);
+        assertTrue(cell.isFilled());
+
+        cell.setCrossed(); // a copy
+        assertTrue(nonogram.isFilled(1, 0));
+        assertTrue(nonogram.getGrid().isFilled(1, 0));
+    }
+}
@@ -0,0 +1,166 @@
+package fr.poulpogaz.nonogramssolver;
+
+import fr.poulpogaz.nonogramssolver.reader.ImageReader;
+import fr.poulpogaz.nonogramssolver.solver.NonogramSolver;
+import fr.poulpogaz.nonogramssolver.solver.SolverListener;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.FileImageOutputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndexedNonogramRendererTest {
+
+    @Test
+    void sameAsRendererTest() throws IOException {
+        for (String name : new String[] {"007.png", "java.png"}) {
+            Nonogram nonogram = solve(name);
+
+            // crosses are drawn differently
+            Grid grid = nonogram.getGrid();
+            for (int y = 0; y < grid.getHeight(); y++) {
+                for (int x = 0; x < grid.getWidth(); x++) {
+                    if (grid.isCrossed(x, y)) {
+                        grid.set(x, y, Cell.EMPTY, 0);
+                    }
+                }
+            }
+
+            for (int squareSize : new int[] {4, 8}) {
+                IndexedNonogramRenderer renderer = new IndexedNonogramRenderer(nonogram, NonogramRenderer.DEFAULT, squareSize);
+                BufferedImage image = renderer.render(nonogram);
+
+                assertEquals(BufferedImage.TYPE_BYTE_INDEXED, image.getType());
+                assertImageEquals(NonogramRenderer.DEFAULT.asImage(nonogram, squareSize), image);
+            }
+        }
+    }
+
+    @Test
+    void regionTest() throws IOException {
+        Nonogram nonogram = solve("007.png");
+        IndexedNonogramRenderer renderer = new IndexedNonogramRenderer(nonogram, NonogramRenderer.DEFAULT, 8);
+        BufferedImage full = renderer.render(nonogram);
+
+        Rectangle[] cells = {
+                new Rectangle(0, 0, 1, 1),
+                new Rectangle(3, 2, 5, 4),
+                new Rectangle(0, 0, nonogram.getWidth(), nonogram.getHeight())
+        };
+        for (Rectangle c : cells) {
+            Rectangle region = renderer.regionOf(nonogram, c);
+            BufferedImage image = renderer.render(nonogram, c);
+
+            assertEquals(region.width, image.getWidth());
+            assertEquals(region.height, image.getHeight());
+            assertImageEquals(full.getSubimage(region.x, region.y, region.width, region.height), image);
+        }
+    }
+
+    @Test
+    void crossTest() throws IOException {
+        Nonogram nonogram = new ImageReader().read(Path.of("example", "007.png"), true, null);
+        nonogram.getGrid().set(1, 2, Cell.CROSSED, 0);
+
+        IndexedNonogramRenderer renderer = new IndexedNonogramRenderer(nonogram, NonogramRenderer.DEFAULT, 9);
+        BufferedImage image = renderer.render(nonogram, new Rectangle(1, 2, 1, 1));
+
+        // grid lines, then a cross on the background from (1, 1) to (8, 8)
+        assertEquals(Color.BLACK.getRGB(), image.getRGB(0, 0));
+        assertEquals(Color.BLACK.getRGB(), image.getRGB(1, 1));
+        assertEquals(Color.BLACK.getRGB(), image.getRGB(4, 4));
+        assertEquals(Color.BLACK.getRGB(), image.getRGB(8, 1));
+        assertEquals(nonogram.getBackground().getRGB(), image.getRGB(2, 1));
+        assertEquals(nonogram.getBackground().getRGB(), image.getRGB(4, 8));
+    }
+
+    @Test
+    void gifTest() throws IOException {
+        Nonogram nonogram = solve("java.png");
+        IndexedNonogramRenderer renderer = new IndexedNonogramRenderer(nonogram, NonogramRenderer.DEFAULT, 6);
+        BufferedImage image = renderer.render(nonogram);
+
+        Path file = Files.createTempFile("indexed", ".gif");
+        try {
+            try (ImageOutputStream ios = new FileImageOutputStream(file.toFile())) {
+                GifSequenceWriter writer = new GifSequenceWriter(ios, BufferedImage.TYPE_INT_RGB, 10, false);
+                writer.writeToSequence(image);
+                writer.close();
+            }
+
+            // the palette is used as is
+            assertImageEquals(image, ImageIO.read(file.toFile()));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void tooManyColorsTest() {
+        // one row of 300 cells, each of a different color
+        int nColors = 300;
+        Color[] colors = new Color[nColors];
+        for (int i = 0; i < nColors; i++) {
+            colors[i] = new Color(i % 256, i / 256 * 128, 64);
+        }
+
+        Nonogram.Builder builder = new Nonogram.Builder();
+        builder.setWidth(nColors);
+        builder.setHeight(1);
+        builder.setNumberOfClue(0, true, nColors);
+        for (int i = 0; i < nColors; i++) {
+            builder.addClue(0, true, 1, colors[i]);
+            builder.setNumberOfClue(i, false, 1);
+            builder.addClue(i, false, 1, colors[i]);
+        }
+        Nonogram nonogram = builder.build();
+
+        List<Color> nonogramColors = Arrays.asList(nonogram.getColors());
+        for (int x = 0; x < nColors; x++) {
+            nonogram.getGrid().set(x, 0, Cell.FILLED, nonogramColors.indexOf(colors[x]));
+        }
+
+        IndexedNonogramRenderer renderer = new IndexedNonogramRenderer(nonogram, NonogramRenderer.DEFAULT, 4);
+        BufferedImage image = renderer.render(nonogram);
+        Rectangle region = renderer.regionOf(nonogram, new Rectangle(0, 0, 1, 1));
+
+        // the first 253 colors are exact, white, background and cross use the other slots
+        for (int x = 0; x < nColors; x++) {
+            Color actual = new Color(image.getRGB(region.x + x * 4 + 1, region.y + 1));
+
+            if (x < 253) {
+                assertEquals(colors[x], actual);
+            } else {
+                assertTrue(Math.abs(colors[x].getRed() - actual.getRed()) <= 128, x + ": " + actual);
+                assertEquals(colors[x].getBlue(), actual.getBlue());
+            }
+        }
+    }
+
+    private Nonogram solve(String name) throws IOException {
+        Nonogram nonogram = new ImageReader().read(Path.of("example", name), true, null);
+        assertTrue(new NonogramSolver().solve(nonogram, SolverListener.EMPTY_LISTENER, true, true).isSolved());
+
+        return nonogram;
+    }
+
+    private void assertImageEquals(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), x + ", " + y);
+            }
+        }
+    }
+}
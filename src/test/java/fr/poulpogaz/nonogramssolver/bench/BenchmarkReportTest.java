@@ -0,0 +1,120 @@
+package fr.poulpogaz.nonogramssolver.bench;
+
+import fr.poulpogaz.nonogramssolver.Nonogram;
+import fr.poulpogaz.nonogramssolver.solver.NonogramSolver;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BenchmarkReportTest {
+
+    @Test
+    void writeReadTest() throws IOException {
+        BenchmarkReport report = new BenchmarkReport("line-solver=\"default\"", 1, 3, List.of(
+                result("a.png", 1000, true),
+                result("b.xml", 2000, false)));
+
+        Path file = Files.createTempFile("report", ".json");
+        try {
+            report.write(file);
+            assertEquals(report, BenchmarkReport.read(file));
+
+            Files.writeString(file, "{\"results\": 1}");
+            assertThrows(IOException.class, () -> BenchmarkReport.read(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void compareTest() {
+        BenchmarkReport baseline = new BenchmarkReport("", 0, 1, List.of(
+                result("same", 1000, true),
+                result("slower", 1000, true),
+                result("faster", 1000, true),
+                result("unsolved", 1000, true),
+                result("missing", 1000, true)));
+        BenchmarkReport current = new BenchmarkReport("", 0, 1, List.of(
+                result("same", 1050, true),
+                result("slower", 1200, true),
+                result("faster", 800, true),
+                result("unsolved", 1000, false),
+                result("new", 1000, true)));
+
+        ReportComparison comparison = new ReportComparison(baseline, current, 0.1);
+        List<ReportComparison.Difference> differences = comparison.getDifferences();
+
+        assertEquals(5, differences.size());
+        assertEquals(ReportComparison.Status.UNCHANGED, differences.get(0).status());
+        assertEquals(ReportComparison.Status.REGRESSION, differences.get(1).status());
+        assertEquals(1.2, differences.get(1).ratio(), 1e-9);
+        assertEquals(ReportComparison.Status.IMPROVEMENT, differences.get(2).status());
+        assertEquals(ReportComparison.Status.REGRESSION, differences.get(3).status());
+        assertEquals(ReportComparison.Status.MISSING, differences.get(4).status());
+
+        assertTrue(comparison.hasRegression());
+        assertEquals(2, comparison.count(ReportComparison.Status.REGRESSION));
+        assertEquals(1, new ReportComparison(baseline, current, 0.5).count(ReportComparison.Status.REGRESSION));
+    }
+
+    @Test
+    void duplicateTest() throws IOException {
+        // puzzles with the same file name in different directories
+        BenchmarkReport baseline = new BenchmarkReport("", 0, 1, List.of(
+                result("easy/a.png", 1000, true),
+                result("hard/a.png", 1000, true)));
+        BenchmarkReport current = new BenchmarkReport("", 0, 1, List.of(
+                result("easy/a.png", 1000, true),
+                result("hard/a.png", 2000, true)));
+
+        List<ReportComparison.Difference> differences = new ReportComparison(baseline, current, 0.1).getDifferences();
+        assertEquals(ReportComparison.Status.UNCHANGED, differences.get(0).status());
+        assertEquals(ReportComparison.Status.REGRESSION, differences.get(1).status());
+
+        assertThrows(IllegalArgumentException.class, () -> new BenchmarkReport("", 0, 1, List.of(
+                result("a.png", 1000, true),
+                result("a.png", 2000, true))));
+
+        Path file = Files.createTempFile("report", ".json");
+        try {
+            Files.writeString(file, baseline.toJSON().replace("hard/a.png", "easy/a.png"));
+            assertThrows(IOException.class, () -> BenchmarkReport.read(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void benchmarkTest() {
+        Nonogram.Builder builder = new Nonogram.Builder();
+        builder.setWidth(2);
+        builder.setHeight(1);
+        builder.setNumberOfClue(0, true, 1);
+        builder.addClue(0, true, 2, Color.BLACK);
+        builder.setNumberOfClue(0, false, 1);
+        builder.addClue(0, false, 1, Color.BLACK);
+        builder.setNumberOfClue(1, false, 1);
+        builder.addClue(1, false, 1, Color.BLACK);
+        Nonogram nonogram = builder.build();
+
+        SolverBenchmark benchmark = new SolverBenchmark(new NonogramSolver(), 2, 3, true, true);
+        BenchmarkReport.Result result = benchmark.run("n", nonogram);
+
+        assertTrue(result.solved());
+        assertEquals(2, result.width());
+        assertEquals(1, result.height());
+        assertTrue(result.minTime() <= result.medianTime() && result.medianTime() <= result.maxTime());
+        assertTrue(nonogram.isEmpty(0, 0)); // copies are solved
+    }
+
+    private BenchmarkReport.Result result(String name, long median, boolean solved) {
+        return new BenchmarkReport.Result(name, 10, 20, solved, median / 2, median, median * 2, median,
+                median / 4, median / 4, median / 2, 1, 2);
+    }
+}
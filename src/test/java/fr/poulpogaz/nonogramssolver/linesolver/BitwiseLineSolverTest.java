@@ -0,0 +1,141 @@
+package fr.poulpogaz.nonogramssolver.linesolver;
+
+import fr.poulpogaz.nonogramssolver.Cell;
+import fr.poulpogaz.nonogramssolver.solver.Description;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static fr.poulpogaz.nonogramssolver.linesolver.TestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BitwiseLineSolverTest {
+
+    private static final BitwiseLineSolver solver = new BitwiseLineSolver();
+
+    @Test
+    void emptyTest() {
+        Description description = createEmpty(15, new int[] {2, 6, 2});
+        solver.trySolve(description);
+
+        assertFalse(description.hasContradiction());
+        cellsEquals(description, parseCell("______███______"));
+        clueEquals(0, 5, description.getClue(0));
+        clueEquals(3, 12, description.getClue(1));
+        clueEquals(10, 15, description.getClue(2));
+    }
+
+    @Test
+    void filledTest() {
+        Description description = parse("█___X_████_XXXX", new int[] {2, 5});
+        solver.trySolve(description);
+
+        assertFalse(description.hasContradiction());
+        cellsEquals(description, parseCell("██XXX_████_XXXX"));
+    }
+
+    @Test
+    void noClueTest() {
+        Description description = createEmpty(10, new int[0]);
+        solver.trySolve(description);
+
+        assertFalse(description.hasContradiction());
+        cellsEquals(description, parseCell("XXXXXXXXXX"));
+    }
+
+    @Test
+    void contradictionTest() {
+        Description description = parse("██X██_____", new int[] {3, 2});
+        solver.trySolve(description);
+
+        assertTrue(description.hasContradiction());
+    }
+
+    @Test
+    void fullLineTest() {
+        Description description = createEmpty(64, new int[] {64});
+        solver.trySolve(description);
+
+        assertFalse(description.hasContradiction());
+        cellsEquals(description, parseCell("█".repeat(64)));
+    }
+
+    @Test
+    void gokuTest() {
+        Description description = parse("█XX██XXXXXXXXXXXXX__________________________________________█XXX████████████████",
+                new int[] {1, 2, 10, 2, 2, 1, 16});
+
+        assertFalse(solver.canSolve(description));
+        solver.trySolve(description); // solved by DefaultLineSolver
+
+        assertFalse(description.hasContradiction());
+    }
+
+    /**
+     * Compares the result of the solver with all possible arrangements and with {@link DefaultLineSolver}
+     */
+    @Test
+    void randomTest() {
+        Random random = new Random(42);
+        DefaultLineSolver defaultSolver = new DefaultLineSolver();
+
+        for (int t = 0; t < 5000; t++) {
+            int n = 1 + random.nextInt(20);
+            String line = randomLine(random, n);
+            int[] clues = randomClues(random, n);
+            String message = "Line: '%s', clues: %s".formatted(line, Arrays.toString(clues));
+
+            Description bitwise = parse(line, clues);
+            Cell[] expected = bruteForce(bitwise);
+            solver.trySolve(bitwise);
+
+            if (expected == null) {
+                assertTrue(bitwise.hasContradiction(), message);
+                continue;
+            }
+
+            assertFalse(bitwise.hasContradiction(), message);
+            cellsEquals(bitwise, expected);
+
+            Description def = parse(line, clues);
+            defaultSolver.trySolve(def);
+
+            if (!def.hasContradiction()) {
+                for (int i = 0; i < n; i++) {
+                    if (!def.isEmpty(i)) {
+                        assertEquals(def.getCell(i).get(), bitwise.getCell(i).get(), message + " at " + i);
+                    }
+                }
+            }
+        }
+    }
+
+    private String randomLine(Random random, int n) {
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < n; i++) {
+            int r = random.nextInt(10);
+
+            if (r < 1) {
+                sb.append('X');
+            } else if (r < 2) {
+                sb.append('█');
+            } else {
+                sb.append('_');
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private int[] randomClues(Random random, int n) {
+        int[] clues = new int[random.nextInt(5)];
+
+        for (int i = 0; i < clues.length; i++) {
+            clues[i] = 1 + random.nextInt(Math.max(1, n / 3));
+        }
+
+        return clues;
+    }
+}
@@ -0,0 +1,67 @@
+package fr.poulpogaz.nonogramssolver.linesolver;
+
+import fr.poulpogaz.nonogramssolver.solver.Description;
+import org.junit.jupiter.api.Test;
+
+import static fr.poulpogaz.nonogramssolver.linesolver.TestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachedLineSolverTest {
+
+    @Test
+    void hitTest() {
+        CachedLineSolver solver = new CachedLineSolver(new DefaultLineSolver());
+
+        Description description = createEmpty(15, new int[] {2, 6, 2});
+        solver.trySolve(description);
+        assertEquals(0, solver.getHits());
+        assertEquals(1, solver.getMisses());
+
+        Description description2 = createEmpty(15, new int[] {2, 6, 2});
+        solver.trySolve(description2);
+        assertEquals(1, solver.getHits());
+        assertEquals(1, solver.getMisses());
+
+        cellsEquals(description2, description.getCells());
+        assertTrue(description2.hasChanged());
+        assertFalse(description2.hasContradiction());
+
+        // not the same clues
+        Description description3 = createEmpty(15, new int[] {2, 6, 3});
+        solver.trySolve(description3);
+        assertEquals(1, solver.getHits());
+        assertEquals(2, solver.getMisses());
+    }
+
+    @Test
+    void contradictionTest() {
+        CachedLineSolver solver = new CachedLineSolver(new DefaultLineSolver());
+
+        Description description = parse("███_______", new int[] {2});
+        solver.trySolve(description);
+        assertTrue(description.hasContradiction());
+
+        Description description2 = parse("███_______", new int[] {2});
+        solver.trySolve(description2);
+        assertTrue(description2.hasContradiction());
+        assertEquals(1, solver.getHits());
+    }
+
+    @Test
+    void evictionTest() {
+        CachedLineSolver solver = new CachedLineSolver(new DefaultLineSolver(), 2);
+
+        solver.trySolve(createEmpty(10, new int[] {1}));
+        solver.trySolve(createEmpty(10, new int[] {2}));
+        solver.trySolve(createEmpty(10, new int[] {1}));
+        solver.trySolve(createEmpty(10, new int[] {3})); // removes {2}
+        assertEquals(2, solver.size());
+
+        solver.trySolve(createEmpty(10, new int[] {1}));
+        assertEquals(2, solver.getHits());
+
+        solver.trySolve(createEmpty(10, new int[] {2}));
+        assertEquals(2, solver.getHits());
+        assertEquals(4, solver.getMisses());
+    }
+}
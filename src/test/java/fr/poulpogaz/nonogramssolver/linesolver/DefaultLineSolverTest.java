@@ -3,6 +3,7 @@ package fr.poulpogaz.nonogramssolver.linesolver;
 import fr.poulpogaz.nonogramssolver.solver.Description;
 import org.junit.jupiter.api.Test;
 
+import java.lang.management.ManagementFactory;
 import java.util.List;
 
 import static fr.poulpogaz.nonogramssolver.linesolver.TestUtils.*;
@@ -399,7 +400,7 @@ public class DefaultLineSolverTest {
         solver.setDescriptor(description);
         solver.computePossibilities();
         solver.optimizeCluesBoundWithOnePossibility();
-        solver.tryFill(List.of());
+        solver.tryFill(new Lines());
         cellsEquals(description, parseCell("X_____████_____"));
     }
 
@@ -458,4 +459,38 @@ public class DefaultLineSolverTest {
         solver.drawBetween(6, 15, 8, 0);
         cellsEquals(description, parseCell("_____█████████______"));
     }
+
+    @Test
+    void noAllocationTest() {
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        Description[] descriptions = new Description[] {
+                parse("X_____███______", new int[] {2, 6, 2}),
+                parse("_________________XX█__█XX_█X______X████████████████████████████████XXX",
+                        new int[] {3, 1, 2, 2, 32}),
+                parse("X_████████████████_XXX_██X____██X____________________________XXXXXXXXXXXXXXXXXXX",
+                        new int[] {17, 2, 3, 2, 5, 2, 7})
+        };
+
+        DefaultLineSolver solver = new DefaultLineSolver();
+        int n = 10000;
+        for (int i = 0; i < n; i++) { // warm up
+            for (Description d : descriptions) {
+                d.setChanged();
+                solver.trySolve(d);
+            }
+        }
+
+        long before = bean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < n; i++) {
+            for (Description d : descriptions) {
+                d.setChanged();
+                solver.trySolve(d);
+            }
+        }
+        long allocated = bean.getCurrentThreadAllocatedBytes() - before;
+
+        assertTrue(allocated < n, "%d bytes allocated for %d calls".formatted(allocated, n * descriptions.length));
+    }
 }
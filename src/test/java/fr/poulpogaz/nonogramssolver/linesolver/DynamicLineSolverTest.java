@@ -0,0 +1,129 @@
+package fr.poulpogaz.nonogramssolver.linesolver;
+
+import fr.poulpogaz.nonogramssolver.Cell;
+import fr.poulpogaz.nonogramssolver.solver.Description;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.Random;
+
+import static fr.poulpogaz.nonogramssolver.linesolver.TestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DynamicLineSolverTest {
+
+    private static final DynamicLineSolver solver = new DynamicLineSolver();
+
+    @Test
+    void emptyTest() {
+        Description description = createEmpty(15, new int[] {2, 6, 2});
+        solver.trySolve(description);
+
+        assertFalse(description.hasContradiction());
+        cellsEquals(description, parseCell("______███______"));
+        clueEquals(0, 5, description.getClue(0));
+        clueEquals(3, 12, description.getClue(1));
+        clueEquals(10, 15, description.getClue(2));
+    }
+
+    @Test
+    void filledTest() {
+        Description description = parse("____█________█", new int[] {2, 2, 2});
+        solver.trySolve(description);
+
+        assertFalse(description.hasContradiction());
+        cellsEquals(description, parseCell("____█______X██"));
+    }
+
+    @Test
+    void filledTest2() {
+        Description description = parse("█___X_████_XXXX", new int[] {2, 5});
+        solver.trySolve(description);
+
+        assertFalse(description.hasContradiction());
+        cellsEquals(description, parseCell("██XXX_████_XXXX"));
+    }
+
+    @Test
+    void contradictionTest() {
+        Description description = parse("██X██_____", new int[] {3, 2});
+        solver.trySolve(description);
+
+        assertTrue(description.hasContradiction());
+    }
+
+    @Test
+    void multicolorTest() {
+        // two clues of different colors can touch
+        Description description = createEmpty(5, new Object[] {2, Color.RED, 3, Color.BLUE});
+        solver.trySolve(description);
+
+        assertFalse(description.hasContradiction());
+        assertTrue(description.isFilled(0, 0));
+        assertTrue(description.isFilled(1, 0));
+        assertTrue(description.isFilled(2, 1));
+        assertTrue(description.isFilled(3, 1));
+        assertTrue(description.isFilled(4, 1));
+    }
+
+    @Test
+    void multicolorTest2() {
+        Description description = createEmpty(6, new Object[] {2, Color.RED, 2, Color.RED, 1, Color.BLUE});
+        solver.trySolve(description);
+
+        assertFalse(description.hasContradiction());
+        assertTrue(description.isFilled(0, 0));
+        assertTrue(description.isFilled(1, 0));
+        assertTrue(description.isCrossed(2));
+        assertTrue(description.isFilled(3, 0));
+        assertTrue(description.isFilled(4, 0));
+        assertTrue(description.isFilled(5, 1));
+    }
+
+    @Test
+    void randomTest() {
+        Random random = new Random(42);
+
+        for (int t = 0; t < 5000; t++) {
+            int n = 1 + random.nextInt(20);
+            Object[] clues = randomClues(random, n, t % 2 == 0 ? 1 : 3);
+
+            Description description = createEmpty(n, clues);
+            for (int i = 0; i < n; i++) {
+                int r = random.nextInt(10);
+
+                if (r < 1) {
+                    description.setCell(i, Cell.CROSSED);
+                } else if (r < 2 && description.nClues() > 0) {
+                    int clue = random.nextInt(description.nClues());
+                    description.setCell(i, Cell.FILLED, description.getClue(clue).getColor());
+                }
+            }
+
+            String message = "Line: '%s', clues: %s".formatted(Arrays.toString(description.getCells()), Arrays.toString(clues));
+
+            Cell[] expected = bruteForce(description);
+            solver.trySolve(description);
+
+            if (expected == null) {
+                assertTrue(description.hasContradiction(), message);
+            } else {
+                assertFalse(description.hasContradiction(), message);
+                cellsEquals(description, expected);
+            }
+        }
+    }
+
+    private Object[] randomClues(Random random, int n, int nColors) {
+        Color[] colors = new Color[] {Color.BLACK, Color.RED, Color.BLUE};
+        Object[] clues = new Object[2 * random.nextInt(5)];
+
+        for (int i = 0; i < clues.length; i += 2) {
+            clues[i] = 1 + random.nextInt(Math.max(1, n / 3));
+            clues[i + 1] = colors[random.nextInt(nColors)];
+        }
+
+        return clues;
+    }
+}
@@ -184,6 +184,89 @@ public class TestUtils {
         return new Description(true, 0, n.getRows()[0], wrappers);
     }
 
+    /**
+     * Tries every arrangement of the clues
+     *
+     * @return cells that are the same in every arrangement (other cells are empty)
+     * or null if there is no arrangement
+     */
+    public static Cell[] bruteForce(Description description) {
+        Cell[] result = new Cell[description.size()];
+        Cell[] current = createEmptyCell(description.size());
+
+        if (bruteForce(description, 0, 0, current, result)) {
+            for (int i = 0; i < result.length; i++) {
+                if (result[i] == null) {
+                    result[i] = new Cell();
+                }
+            }
+
+            return result;
+        } else {
+            return null;
+        }
+    }
+
+    private static boolean bruteForce(Description desc, int clueIndex, int pos, Cell[] current, Cell[] result) {
+        if (clueIndex == desc.nClues()) {
+            for (int i = pos; i < desc.size(); i++) {
+                if (desc.isFilled(i)) {
+                    return false;
+                }
+                current[i].setCrossed();
+            }
+
+            for (int i = 0; i < desc.size(); i++) {
+                if (result[i] == null) {
+                    result[i] = new Cell(current[i]);
+                } else if (!result[i].equals(current[i])) {
+                    result[i].setEmpty();
+                }
+            }
+
+            return true;
+        }
+
+        Clue clue = desc.getClue(clueIndex);
+        boolean found = false;
+        for (int start = pos; start + clue.getLength() <= desc.size(); start++) {
+            if (start > pos && desc.isFilled(start - 1)) {
+                break;
+            }
+
+            int end = start + clue.getLength();
+            boolean fit = end == desc.size() || !desc.isFilled(end, clue.getColor());
+            for (int i = start; i < end && fit; i++) {
+                fit = desc.isEmpty(i) || desc.isFilled(i, clue.getColor());
+            }
+
+            if (fit) {
+                for (int i = pos; i < start; i++) {
+                    current[i].setCrossed();
+                }
+                for (int i = start; i < end; i++) {
+                    current[i].setFilled(clue.getColor());
+                }
+
+                int next = end;
+                if (clueIndex + 1 < desc.nClues() && desc.getClue(clueIndex + 1).getColor() == clue.getColor()) {
+                    if (next < desc.size()) {
+                        if (desc.isFilled(next)) {
+                            continue;
+                        }
+
+                        current[next].setCrossed();
+                    }
+                    next++;
+                }
+
+                found |= bruteForce(desc, clueIndex + 1, next, current, result);
+            }
+        }
+
+        return found;
+    }
+
     public static void printRegions(List<Region> regions) {
         for (Region r : regions) {
             System.out.println(r);
@@ -0,0 +1,131 @@
+package fr.poulpogaz.nonogramssolver.reader;
+
+import fr.poulpogaz.nonogramssolver.Nonogram;
+import fr.poulpogaz.nonogramssolver.solver.NonogramSolver;
+import fr.poulpogaz.nonogramssolver.solver.SolverListener;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryCorpusTest {
+
+    @Test
+    void roundTripTest() throws IOException {
+        Path file = Files.createTempFile("corpus", ".ngcb");
+
+        try {
+            Nonogram mono = monochrome();
+            Nonogram multi = multicolor();
+
+            try (BinaryCorpusWriter writer = new BinaryCorpusWriter(file)) {
+                writer.write("mono", mono);
+                for (int i = 0; i < 200; i++) {
+                    writer.write("multi-" + i, multi);
+                }
+                writer.write("é", mono);
+            }
+
+            try (BinaryCorpus corpus = BinaryCorpus.open(file)) {
+                assertEquals(202, corpus.size());
+                assertEquals("mono", corpus.getId(0));
+                assertEquals("multi-150", corpus.getId(151));
+                assertEquals("é", corpus.getId(201));
+
+                assertNonogramEquals(mono, corpus.get(0));
+                assertNonogramEquals(multi, corpus.get(151));
+                assertNonogramEquals(mono, corpus.get(201));
+                assertTrue(new NonogramSolver().solve(corpus.get(151), SolverListener.EMPTY_LISTENER, false, false).isSolved());
+
+                assertThrows(IndexOutOfBoundsException.class, () -> corpus.get(202));
+                assertThrows(IndexOutOfBoundsException.class, () -> corpus.get(-1));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void emptyTest() throws IOException {
+        Path file = Files.createTempFile("corpus", ".ngcb");
+
+        try {
+            new BinaryCorpusWriter(file).close();
+
+            try (BinaryCorpus corpus = BinaryCorpus.open(file)) {
+                assertEquals(0, corpus.size());
+            }
+
+            Files.writeString(file, "not a corpus, not a corpus");
+            assertThrows(IOException.class, () -> BinaryCorpus.open(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void varintTest() {
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[] {0, 127, (byte) 0x80, 1, (byte) 0xFF, (byte) 0xFF, 3});
+
+        assertEquals(0, BinaryCorpus.readVarint(buffer));
+        assertEquals(127, BinaryCorpus.readVarint(buffer));
+        assertEquals(128, BinaryCorpus.readVarint(buffer));
+        assertEquals(0xFFFF, BinaryCorpus.readVarint(buffer));
+    }
+
+    private void assertNonogramEquals(Nonogram expected, Nonogram actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        assertEquals(expected.getBackground(), actual.getBackground());
+        assertArrayEquals(expected.getColors(), actual.getColors());
+        assertArrayEquals(expected.getRows(), actual.getRows());
+        assertArrayEquals(expected.getColumns(), actual.getColumns());
+    }
+
+    private Nonogram monochrome() {
+        Nonogram.Builder builder = new Nonogram.Builder();
+        builder.setWidth(3);
+        builder.setHeight(2);
+
+        builder.setNumberOfClue(0, true, 2);
+        builder.addClue(0, true, 1, Color.BLACK);
+        builder.addClue(0, true, 1, Color.BLACK);
+        builder.setNumberOfClue(1, true, 0);
+
+        builder.setNumberOfClue(0, false, 1);
+        builder.addClue(0, false, 1, Color.BLACK);
+        builder.setNumberOfClue(1, false, 0);
+        builder.setNumberOfClue(2, false, 1);
+        builder.addClue(2, false, 1, Color.BLACK);
+
+        return builder.build();
+    }
+
+    private Nonogram multicolor() {
+        Color red = new Color(200, 0, 0);
+        Color blue = new Color(0, 0, 200);
+
+        Nonogram.Builder builder = new Nonogram.Builder();
+        builder.setBackground(new Color(250, 250, 250));
+        builder.setWidth(2);
+        builder.setHeight(2);
+
+        for (int i = 0; i < 2; i++) {
+            builder.setNumberOfClue(i, true, 2);
+            builder.addClue(i, true, 1, red);
+            builder.addClue(i, true, 1, blue);
+        }
+
+        builder.setNumberOfClue(0, false, 1);
+        builder.addClue(0, false, 2, red);
+        builder.setNumberOfClue(1, false, 1);
+        builder.addClue(1, false, 2, blue);
+
+        return builder.build();
+    }
+}
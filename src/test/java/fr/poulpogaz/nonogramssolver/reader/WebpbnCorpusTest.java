@@ -0,0 +1,109 @@
+package fr.poulpogaz.nonogramssolver.reader;
+
+import fr.poulpogaz.nonogramssolver.Cell;
+import fr.poulpogaz.nonogramssolver.Nonogram;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WebpbnCorpusTest {
+
+    @Test
+    void loadTest() throws IOException {
+        Path dir = Files.createTempDirectory("corpus");
+
+        try {
+            Path sub = Files.createDirectory(dir.resolve("sub"));
+            Files.writeString(dir.resolve("a.xml"), "<puzzleset>" + puzzle("1", 1) + puzzle("2", 2) + "</puzzleset>");
+            Files.writeString(sub.resolve("42.xml"), puzzle(null, 3));
+            Files.writeString(dir.resolve("ignored.txt"), "not a puzzle");
+
+            Path zip = dir.resolve("b.zip");
+            try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(zip))) {
+                zos.putNextEntry(new ZipEntry("puzzles/3.xml"));
+                zos.write(puzzle("3", 4).getBytes(StandardCharsets.UTF_8));
+                zos.putNextEntry(new ZipEntry("puzzles/4.xml"));
+                zos.write(puzzle("1", 5).getBytes(StandardCharsets.UTF_8)); // duplicate
+                zos.closeEntry();
+            }
+
+            WebpbnCorpus corpus = WebpbnCorpus.load(List.of(dir), 2);
+            assertEquals(Set.of("1", "2", "3", "42"), corpus.ids());
+            assertEquals(1, corpus.get("1").getWidth());
+            assertEquals(2, corpus.get("2").getWidth());
+            assertEquals(4, corpus.get("3").getWidth());
+            assertEquals(3, corpus.get("42").getWidth());
+            assertNull(corpus.get("5"));
+
+            // get returns a copy
+            Nonogram n = corpus.get("1");
+            n.set(0, 0, Cell.FILLED, 0);
+            assertTrue(corpus.get("1").isEmpty(0, 0));
+
+            List<String> ids = new ArrayList<>();
+            corpus.forEach((id, nonogram) -> {
+                assertEquals(corpus.get(id).getWidth(), nonogram.getWidth());
+                ids.add(id);
+            });
+            assertEquals(List.copyOf(corpus.ids()), ids);
+
+            WebpbnCorpus zipOnly = WebpbnCorpus.load(List.of(zip), 1);
+            assertEquals(5, zipOnly.get("1").getWidth());
+
+            assertThrows(IOException.class, () -> WebpbnCorpus.load(List.of(dir.resolve("missing")), 1));
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(p);
+                }
+            }
+        }
+    }
+
+    @Test
+    void lazyTest() throws IOException {
+        Path file = Files.createTempFile("corpus", ".xml");
+
+        try {
+            // only ids are read when loading: the invalid puzzle fails when requested
+            Files.writeString(file, "<puzzleset>" + puzzle("1", 2) + "<puzzle><id>2</id></puzzle></puzzleset>");
+
+            WebpbnCorpus corpus = WebpbnCorpus.load(List.of(file), 1);
+            assertEquals(Set.of("1", "2"), corpus.ids());
+            assertEquals(2, corpus.get("1").getWidth());
+            assertThrows(IOException.class, () -> corpus.get("2"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * @return a puzzle with one row and width columns
+     */
+    private String puzzle(String id, int width) {
+        StringBuilder sb = new StringBuilder("<puzzle>");
+        if (id != null) {
+            sb.append("<id>#").append(id).append("</id>");
+        }
+
+        sb.append("<clues type=\"rows\"><line><count>").append(width).append("</count></line></clues>");
+        sb.append("<clues type=\"columns\">");
+        for (int i = 0; i < width; i++) {
+            sb.append("<line><count>1</count></line>");
+        }
+
+        return sb.append("</clues></puzzle>").toString();
+    }
+}
@@ -0,0 +1,91 @@
+package fr.poulpogaz.nonogramssolver.reader;
+
+import fr.poulpogaz.nonogramssolver.Nonogram;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WebpbnReaderTest {
+
+    private static final String PUZZLES = """
+            <?xml version="1.0"?>
+            <!DOCTYPE pbn SYSTEM "https://webpbn.com/pbn-0.3.dtd">
+            <puzzleset>
+            <puzzle type="grid" defaultcolor="black">
+                <id>#1</id>
+                <color name="white" char=".">fff</color>
+                <color name="black" char="X">000</color>
+                <clues type="columns">
+                    <line><count>2</count></line>
+                    <line><count>1</count></line>
+                    <line><count>0</count></line>
+                </clues>
+                <clues type="rows">
+                    <line><count>2</count></line>
+                    <line><count>1</count></line>
+                </clues>
+                <solution type="goal"><image>|XX.|X..|</image></solution>
+            </puzzle>
+            <puzzle type="grid" defaultcolor="black">
+                <color name="white" char=".">ffffff</color>
+                <color name="black" char="X">000000</color>
+                <color name="red" char="r">ff0000</color>
+                <clues type="rows"><line><count>1</count><count color="red">1</count></line></clues>
+                <clues type="columns"><line><count>1</count></line><line><count color="red">1</count></line></clues>
+            </puzzle>
+            </puzzleset>
+            """;
+
+    @Test
+    void readAllTest() throws IOException {
+        List<Nonogram> nonograms;
+        try (Stream<Nonogram> stream = new WebpbnReader().readAll(input(PUZZLES))) {
+            nonograms = stream.toList();
+        }
+
+        assertEquals(2, nonograms.size());
+
+        Nonogram first = nonograms.get(0);
+        assertEquals(3, first.getWidth());
+        assertEquals(2, first.getHeight());
+        assertEquals(Color.WHITE, first.getBackground());
+        assertArrayEquals(new Nonogram.Clue[] {new Nonogram.Clue(2, 0)}, first.getColumns()[0]);
+        assertEquals(0, first.getColumns()[2].length);
+        assertArrayEquals(new Nonogram.Clue[] {new Nonogram.Clue(1, 0)}, first.getRows()[1]);
+        assertArrayEquals(new Color[] {Color.BLACK}, first.getColors());
+
+        Nonogram second = nonograms.get(1);
+        assertEquals(2, second.getWidth());
+        assertEquals(1, second.getHeight());
+        assertArrayEquals(new Nonogram.Clue[] {new Nonogram.Clue(1, 0), new Nonogram.Clue(1, 1)}, second.getRows()[0]);
+        assertArrayEquals(new Color[] {Color.BLACK, Color.RED}, second.getColors());
+    }
+
+    @Test
+    void readTest() throws IOException {
+        Nonogram nonogram = new WebpbnReader().read(input(PUZZLES));
+        assertEquals(3, nonogram.getWidth());
+
+        assertThrows(IOException.class, () -> new WebpbnReader().read(input("<puzzleset></puzzleset>")));
+        assertThrows(IOException.class, () -> new WebpbnReader().read(input("<puzzle><clues type=\"rows\">")));
+    }
+
+    @Test
+    void readIdsTest() throws IOException {
+        assertEquals(Arrays.asList("1", null), new WebpbnReader().readIds(input(PUZZLES)));
+        assertEquals(List.of(), new WebpbnReader().readIds(input("<puzzleset></puzzleset>")));
+    }
+
+    private InputStream input(String str) {
+        return new ByteArrayInputStream(str.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,195 @@
+package fr.poulpogaz.nonogramssolver.server;
+
+import fr.poulpogaz.nonogramssolver.linesolver.DefaultLineSolver;
+import fr.poulpogaz.nonogramssolver.linesolver.LineSolver;
+import fr.poulpogaz.nonogramssolver.solver.NonogramSolver;
+import fr.poulpogaz.nonogramssolver.utils.Json;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SolverServerTest {
+
+    private static final String PUZZLE = """
+            {
+                "rows": [[3], [1, 1], [3]],
+                "columns": [[3], [1, 1], [3]]
+            }
+            """;
+
+    @Test
+    void solveTest() throws IOException, InterruptedException {
+        try (SolverServer server = new SolverServer(new InetSocketAddress("localhost", 0), 1, 4, 10_000, NonogramSolver::new)) {
+            server.start();
+            HttpClient client = HttpClient.newHttpClient();
+
+            HttpResponse<String> rep = client.send(post(server, "/solve?png", PUZZLE), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, rep.statusCode());
+
+            Map<?, ?> json = (Map<?, ?>) Json.parse(rep.body());
+            assertEquals("solved", json.get("status"));
+            assertEquals(List.of("###", "#.#", "###"), json.get("solution"));
+            assertNotNull(json.get("png"));
+
+            rep = client.send(post(server, "/solve", "{\"rows\": [], \"columns\": [[1]]}"), HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, rep.statusCode());
+
+            rep = client.send(post(server, "/solve?timeout=abc", PUZZLE), HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, rep.statusCode());
+
+            HttpRequest metricsRequest = HttpRequest.newBuilder(uri(server, "/metrics")).GET().build();
+            rep = client.send(metricsRequest, HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, rep.statusCode());
+
+            Map<?, ?> metrics = (Map<?, ?>) Json.parse(rep.body());
+            assertEquals(3L, metrics.get("requests"));
+            assertEquals(1L, metrics.get("solved"));
+            assertEquals(2L, metrics.get("bad_requests"));
+            assertEquals(4L, metrics.get("queue_capacity"));
+        }
+    }
+
+    @Test
+    void multicolorTest() throws IOException, InterruptedException {
+        // a single row of 40 cells of different colors: more colors than digits in base 36
+        StringBuilder colors = new StringBuilder();
+        StringBuilder row = new StringBuilder();
+        StringBuilder columns = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            String sep = i > 0 ? "," : "";
+            colors.append(sep).append(String.format("\"c%d\": \"%06x\"", i, i * 0x010101));
+            row.append(sep).append("{\"length\": 1, \"color\": \"c").append(i).append("\"}");
+            columns.append(sep).append("[{\"length\": 1, \"color\": \"c").append(i).append("\"}]");
+        }
+        String puzzle = "{\"colors\": {" + colors + "}, \"rows\": [[" + row + "]], \"columns\": [" + columns + "]}";
+
+        try (SolverServer server = new SolverServer(new InetSocketAddress("localhost", 0), 1, 4, 10_000, NonogramSolver::new)) {
+            server.start();
+            HttpClient client = HttpClient.newHttpClient();
+
+            HttpResponse<String> rep = client.send(post(server, "/solve", puzzle), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, rep.statusCode());
+
+            Map<?, ?> json = (Map<?, ?>) Json.parse(rep.body());
+            assertEquals("solved", json.get("status"));
+            assertEquals(40, ((List<?>) json.get("colors")).size());
+
+            List<?> solution = (List<?>) ((List<?>) json.get("solution")).get(0);
+            for (int i = 0; i < 40; i++) {
+                assertEquals((long) i, solution.get(i));
+            }
+        }
+    }
+
+    @Test
+    void queueFullTest() throws IOException, InterruptedException {
+        try (SolverServer server = new SolverServer(new InetSocketAddress("localhost", 0), 1, 1, 10_000, SolverServerTest::slowSolver)) {
+            server.start();
+            HttpClient client = HttpClient.newHttpClient();
+
+            // the first request is solved, the second waits in the queue and the third is rejected
+            List<CompletableFuture<HttpResponse<String>>> futures = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                futures.add(client.sendAsync(post(server, "/solve", PUZZLE), HttpResponse.BodyHandlers.ofString()));
+            }
+
+            int solved = 0;
+            int rejected = 0;
+            for (CompletableFuture<HttpResponse<String>> future : futures) {
+                HttpResponse<String> rep = future.join();
+
+                if (rep.statusCode() == 200) {
+                    solved++;
+                } else {
+                    assertEquals(503, rep.statusCode());
+                    assertEquals("1", rep.headers().firstValue("Retry-After").orElse(null));
+                    assertNotNull(((Map<?, ?>) Json.parse(rep.body())).get("error"));
+                    rejected++;
+                }
+            }
+
+            assertEquals(2, solved);
+            assertEquals(1, rejected);
+        }
+    }
+
+    @Test
+    void timeoutTest() throws IOException, InterruptedException {
+        try (SolverServer server = new SolverServer(new InetSocketAddress("localhost", 0), 1, 1, 10_000, SolverServerTest::slowSolver)) {
+            server.start();
+            HttpClient client = HttpClient.newHttpClient();
+
+            HttpResponse<String> rep = client.send(post(server, "/solve?timeout=100", PUZZLE), HttpResponse.BodyHandlers.ofString());
+            assertEquals(504, rep.statusCode());
+            assertNotNull(((Map<?, ?>) Json.parse(rep.body())).get("error"));
+
+            // the solver is interrupted, so the worker is soon available
+            HttpRequest metricsRequest = HttpRequest.newBuilder(uri(server, "/metrics")).GET().build();
+            Map<?, ?> metrics;
+            long end = System.currentTimeMillis() + 2_000;
+            do {
+                Thread.sleep(10);
+                metrics = (Map<?, ?>) Json.parse(client.send(metricsRequest, HttpResponse.BodyHandlers.ofString()).body());
+            } while (!metrics.get("active_workers").equals(0L) && System.currentTimeMillis() < end);
+
+            assertEquals(1L, metrics.get("timeouts"));
+            assertEquals(0L, metrics.get("active_workers"));
+            assertEquals(0L, metrics.get("solved"));
+        }
+    }
+
+    @Test
+    void bodyTooLargeTest() throws IOException, InterruptedException {
+        try (SolverServer server = new SolverServer(new InetSocketAddress("localhost", 0), 1, 1, 10_000, NonogramSolver::new)) {
+            server.start();
+            HttpClient client = HttpClient.newHttpClient();
+
+            String body = PUZZLE + " ".repeat(SolverServer.MAX_BODY_SIZE + 1 - PUZZLE.length());
+            HttpResponse<String> rep = client.send(post(server, "/solve", body), HttpResponse.BodyHandlers.ofString());
+            assertEquals(413, rep.statusCode());
+
+            body = PUZZLE + " ".repeat(SolverServer.MAX_BODY_SIZE - PUZZLE.length());
+            rep = client.send(post(server, "/solve", body), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, rep.statusCode());
+        }
+    }
+
+    /**
+     * A solver which spends 100 ms on each line, unless it is interrupted
+     */
+    private static NonogramSolver slowSolver() {
+        LineSolver lineSolver = new DefaultLineSolver();
+
+        return new NonogramSolver(description -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            lineSolver.trySolve(description);
+        });
+    }
+
+    private HttpRequest post(SolverServer server, String path, String body) {
+        return HttpRequest.newBuilder(uri(server, path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private URI uri(SolverServer server, String path) {
+        return URI.create("http://localhost:" + server.getAddress().getPort() + path);
+    }
+}
@@ -0,0 +1,39 @@
+package fr.poulpogaz.nonogramssolver.solver;
+
+import fr.poulpogaz.nonogramssolver.Cell;
+import org.junit.jupiter.api.Test;
+
+import static fr.poulpogaz.nonogramssolver.linesolver.TestUtils.parse;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DescriptionTest {
+
+    @Test
+    void countersTest() {
+        Description description = parse("X_██__X", new int[] {3});
+        assertEquals(4, description.countSolved());
+        assertEquals(2, description.countFilled());
+        assertEquals(4, description.countChanged());
+        assertFalse(description.isCompleted());
+
+        for (int i = 0; i < description.size(); i++) {
+            description.getCell(i).resetStatus();
+        }
+        assertEquals(0, description.countChanged());
+
+        description.setCell(1, Cell.FILLED);
+        description.setCell(4, Cell.CROSSED);
+        description.setCell(4, Cell.CROSSED); // no change
+        assertEquals(6, description.countSolved());
+        assertEquals(3, description.countFilled());
+        assertEquals(2, description.countChanged());
+        assertTrue(description.isCompleted());
+
+        description.getCell(1).setForce(Cell.EMPTY, 0);
+        description.getCell(1).resetStatus();
+        assertEquals(5, description.countSolved());
+        assertEquals(2, description.countFilled());
+        assertEquals(1, description.countChanged());
+        assertFalse(description.isCompleted());
+    }
+}
@@ -0,0 +1,102 @@
+package fr.poulpogaz.nonogramssolver.solver;
+
+import fr.poulpogaz.nonogramssolver.Nonogram;
+import fr.poulpogaz.nonogramssolver.reader.ImageReader;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NonogramSolverTest {
+
+    @Test
+    void reuseTest() throws IOException {
+        // larger, smaller then wider nonograms
+        String[] names = {"java.png", "007.png", "turtle.png", "samurai.png", "007.png", "java.png"};
+
+        NonogramSolver reused = new NonogramSolver();
+        for (String name : names) {
+            Nonogram expected = new ImageReader().read(Path.of("example", name), true, null);
+            assertTrue(new NonogramSolver().solve(expected, SolverListener.EMPTY_LISTENER, true, true).isSolved(), name);
+
+            Nonogram nonogram = new ImageReader().read(Path.of("example", name), true, null);
+            assertTrue(reused.solve(nonogram, SolverListener.EMPTY_LISTENER, true, true).isSolved(), name);
+            assertArrayEquals(expected.getGrid().copy(), nonogram.getGrid().copy(), name);
+        }
+    }
+
+    @Test
+    void statsTest() throws IOException {
+        NonogramSolver solver = new NonogramSolver();
+
+        // solved by the line solver
+        Nonogram nonogram = new ImageReader().read(Path.of("example", "007.png"), true, null);
+        SolverStats stats = solver.solve(nonogram, SolverListener.EMPTY_LISTENER, true, true);
+
+        assertTrue(stats.isSolved());
+        assertSame(stats, solver.getStats());
+        assertTrue(stats.getLineSolves() >= nonogram.getWidth() + nonogram.getHeight());
+        assertTrue(stats.getLinesChanged() > 0 && stats.getLinesChanged() <= stats.getLineSolves());
+        assertEquals(0, stats.getProbes());
+        assertEquals(0, stats.getGuesses());
+        assertEquals(0, stats.getMaxDepth());
+        assertTrue(stats.getLineSolvingTime() > 0);
+        assertEquals(0, stats.getRecursionTime());
+        assertTrue(stats.getLineSolvingTime() + stats.getContradictionTime() <= stats.getTotalTime());
+
+        // a new object is returned by each call
+        SolverStats other = solver.solve(new ImageReader().read(Path.of("example", "java.png"), true, null),
+                SolverListener.EMPTY_LISTENER, false, false);
+        assertNotSame(stats, other);
+        assertTrue(stats.isSolved());
+    }
+
+    @Test
+    void noEmptyCellTest() throws IOException {
+        // the last cell of liberty.png is deduced after all lines match their clues
+        Nonogram nonogram = new ImageReader().read(Path.of("example", "liberty.png"), true, null);
+        assertTrue(new NonogramSolver().solve(nonogram, SolverListener.EMPTY_LISTENER, true, true).isSolved());
+        assertEquals(0, nonogram.getGrid().getUnsolvedLines());
+    }
+
+    @Test
+    void recursionStatsTest() {
+        // a 2x2 nonogram with two solutions: the line solver can't solve any cell
+        Nonogram.Builder builder = new Nonogram.Builder();
+        builder.setWidth(2);
+        builder.setHeight(2);
+
+        for (int i = 0; i < 2; i++) {
+            builder.setNumberOfClue(i, true, 1);
+            builder.addClue(i, true, 1, Color.BLACK);
+            builder.setNumberOfClue(i, false, 1);
+            builder.addClue(i, false, 1, Color.BLACK);
+        }
+
+        SolverStats stats = new NonogramSolver().solve(builder.build(), SolverListener.EMPTY_LISTENER, false, true);
+
+        assertTrue(stats.isSolved());
+        assertTrue(stats.getGuesses() > 0);
+        assertTrue(stats.getRecursionTime() > 0);
+        assertEquals(0, stats.getContradictionTime());
+        assertTrue(stats.getLineSolvingTime() + stats.getRecursionTime() <= stats.getTotalTime());
+    }
+
+    @Test
+    void poolTest() throws InterruptedException {
+        NonogramSolverPool pool = new NonogramSolverPool(NonogramSolver::new);
+        NonogramSolver solver = pool.get();
+        assertSame(solver, pool.get());
+
+        NonogramSolver[] other = new NonogramSolver[1];
+        Thread thread = new Thread(() -> other[0] = pool.get());
+        thread.start();
+        thread.join();
+
+        assertNotNull(other[0]);
+        assertNotSame(solver, other[0]);
+    }
+}
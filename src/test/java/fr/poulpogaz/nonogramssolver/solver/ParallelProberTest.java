@@ -0,0 +1,126 @@
+package fr.poulpogaz.nonogramssolver.solver;
+
+import fr.poulpogaz.nonogramssolver.Nonogram;
+import fr.poulpogaz.nonogramssolver.linesolver.DefaultLineSolver;
+import fr.poulpogaz.nonogramssolver.linesolver.DynamicLineSolver;
+import fr.poulpogaz.nonogramssolver.reader.ImageReader;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelProberTest {
+
+    @Test
+    void deterministicTest() throws IOException {
+        for (String name : new String[] {"samurai.png", "liberty.png", "naruto.png"}) {
+            int[] expected = null;
+
+            for (int threads = 1; threads <= 3; threads++) {
+                Nonogram nonogram = new ImageReader().read(Path.of("example", name), true, null);
+
+                NonogramSolver solver = new NonogramSolver();
+                solver.setThreads(threads, DefaultLineSolver::new);
+
+                assertTrue(solver.solve(nonogram, SolverListener.EMPTY_LISTENER, true, true).isSolved(), name);
+
+                int[] grid = nonogram.getGrid().copy();
+                if (threads == 2) {
+                    expected = grid;
+                } else if (threads > 2) {
+                    assertArrayEquals(expected, grid, name + " with " + threads + " threads");
+                }
+            }
+        }
+    }
+
+    @Test
+    void sameAsSingleThreadTest() {
+        // compares the grids right after the contradiction phase, so only nonograms which
+        // aren't solved by probing are kept. The line solver must be complete: otherwise,
+        // the cells found by probing depend on the order of the probes
+        Random random = new Random(42);
+        int compared = 0;
+
+        for (int i = 0; i < 40; i++) {
+            Nonogram puzzle = randomNonogram(random, 15, 15);
+
+            Nonogram expected = new Nonogram(puzzle);
+            SolverStats stats = new NonogramSolver(new DynamicLineSolver())
+                    .solve(expected, SolverListener.EMPTY_LISTENER, true, false);
+            if (stats.isSolved() || stats.getContradictions() == 0) {
+                continue;
+            }
+            compared++;
+
+            for (int threads = 2; threads <= 4; threads++) {
+                Nonogram nonogram = new Nonogram(puzzle);
+
+                NonogramSolver solver = new NonogramSolver(new DynamicLineSolver());
+                solver.setThreads(threads, DynamicLineSolver::new);
+
+                assertFalse(solver.solve(nonogram, SolverListener.EMPTY_LISTENER, true, false).isSolved());
+                assertArrayEquals(expected.getGrid().copy(), nonogram.getGrid().copy(),
+                        "nonogram " + i + " with " + threads + " threads");
+            }
+        }
+
+        assertTrue(compared >= 5, "only " + compared + " nonograms compared");
+    }
+
+    /**
+     * @return a monochrome nonogram whose solution is a random grid
+     */
+    private Nonogram randomNonogram(Random random, int width, int height) {
+        boolean[][] solution = new boolean[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                solution[y][x] = random.nextBoolean();
+            }
+        }
+
+        Nonogram.Builder builder = new Nonogram.Builder();
+        builder.setWidth(width);
+        builder.setHeight(height);
+
+        for (int y = 0; y < height; y++) {
+            addClues(builder, y, true, solution[y]);
+        }
+        for (int x = 0; x < width; x++) {
+            boolean[] column = new boolean[height];
+            for (int y = 0; y < height; y++) {
+                column[y] = solution[y][x];
+            }
+            addClues(builder, x, false, column);
+        }
+
+        return builder.build();
+    }
+
+    private void addClues(Nonogram.Builder builder, int i, boolean row, boolean[] line) {
+        List<Integer> clues = new ArrayList<>();
+        int length = 0;
+        for (boolean filled : line) {
+            if (filled) {
+                length++;
+            } else if (length > 0) {
+                clues.add(length);
+                length = 0;
+            }
+        }
+        if (length > 0) {
+            clues.add(length);
+        }
+
+        builder.setNumberOfClue(i, row, clues.size());
+        for (int clue : clues) {
+            builder.addClue(i, row, clue, Color.BLACK);
+        }
+    }
+}
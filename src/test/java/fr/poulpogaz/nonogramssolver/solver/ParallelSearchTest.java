@@ -0,0 +1,121 @@
+package fr.poulpogaz.nonogramssolver.solver;
+
+import fr.poulpogaz.nonogramssolver.Nonogram;
+import fr.poulpogaz.nonogramssolver.linesolver.DefaultLineSolver;
+import fr.poulpogaz.nonogramssolver.linesolver.LineSolver;
+import fr.poulpogaz.nonogramssolver.reader.ImageReader;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelSearchTest {
+
+    @Test
+    void recursionTest() throws IOException {
+        for (String name : new String[] {"samurai.png", "turtle.png", "java.png"}) {
+            Nonogram expected = new ImageReader().read(Path.of("example", name), true, null);
+            assertTrue(new NonogramSolver().solve(expected, SolverListener.EMPTY_LISTENER, false, true).isSolved(), name);
+
+            Nonogram nonogram = new ImageReader().read(Path.of("example", name), true, null);
+            NonogramSolver solver = new NonogramSolver();
+            solver.setThreads(3, DefaultLineSolver::new);
+
+            assertTrue(solver.solve(nonogram, SolverListener.EMPTY_LISTENER, false, true).isSolved(), name);
+            assertArrayEquals(expected.getGrid().copy(), nonogram.getGrid().copy(), name);
+        }
+    }
+
+    @Test
+    void noSolutionTest() {
+        // a 2x2 nonogram with one filled cell in each row but none in the columns
+        Nonogram.Builder builder = new Nonogram.Builder();
+        builder.setWidth(2);
+        builder.setHeight(2);
+
+        for (int i = 0; i < 2; i++) {
+            builder.setNumberOfClue(i, true, 1);
+            builder.addClue(i, true, 1, Color.BLACK);
+            builder.setNumberOfClue(i, false, 0);
+        }
+
+        NonogramSolver solver = new NonogramSolver();
+        solver.setThreads(2, DefaultLineSolver::new);
+
+        assertFalse(solver.solve(builder.build(), SolverListener.EMPTY_LISTENER, false, true).isSolved());
+    }
+
+    @Test
+    void guessCountTest() {
+        // a 2x2 nonogram with two solutions: the line solver can't solve any cell
+        Nonogram.Builder builder = new Nonogram.Builder();
+        builder.setWidth(2);
+        builder.setHeight(2);
+
+        for (int i = 0; i < 2; i++) {
+            builder.setNumberOfClue(i, true, 1);
+            builder.addClue(i, true, 1, Color.BLACK);
+            builder.setNumberOfClue(i, false, 1);
+            builder.addClue(i, false, 1, Color.BLACK);
+        }
+
+        NonogramSolver sequential = new NonogramSolver();
+        SolverStats stats = sequential.solve(builder.build(), SolverListener.EMPTY_LISTENER, false, true);
+        assertTrue(stats.isSolved());
+        assertEquals(1, stats.getGuesses());
+        assertEquals(0, stats.getProbes());
+
+        // the first probe finds a solution
+        stats = sequential.solve(builder.build(), SolverListener.EMPTY_LISTENER, true, true);
+        assertTrue(stats.isSolved());
+        assertEquals(0, stats.getGuesses());
+        assertEquals(1, stats.getProbes());
+
+        NonogramSolver solver = new NonogramSolver();
+        solver.setThreads(2, DefaultLineSolver::new);
+        stats = solver.solve(builder.build(), SolverListener.EMPTY_LISTENER, false, true);
+        assertTrue(stats.isSolved());
+        assertEquals(1, stats.getGuesses());
+        assertEquals(1, stats.getMaxDepth());
+    }
+
+    @Test
+    void interruptTest() {
+        // same nonogram as guessCountTest, but each line solved by the workers takes 100 ms
+        Nonogram.Builder builder = new Nonogram.Builder();
+        builder.setWidth(2);
+        builder.setHeight(2);
+
+        for (int i = 0; i < 2; i++) {
+            builder.setNumberOfClue(i, true, 1);
+            builder.addClue(i, true, 1, Color.BLACK);
+            builder.setNumberOfClue(i, false, 1);
+            builder.addClue(i, false, 1, Color.BLACK);
+        }
+
+        NonogramSolver solver = new NonogramSolver();
+        solver.setThreads(2, () -> {
+            LineSolver lineSolver = new DefaultLineSolver();
+
+            return description -> {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                lineSolver.trySolve(description);
+            };
+        });
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(IllegalStateException.class,
+                    () -> solver.solve(builder.build(), SolverListener.EMPTY_LISTENER, false, true));
+        } finally {
+            assertTrue(Thread.interrupted());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package fr.poulpogaz.nonogramssolver.solver;
+
+import fr.poulpogaz.nonogramssolver.Nonogram;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SolverEventsTest {
+
+    @Test
+    void eventsTest() throws IOException {
+        // a 2x2 nonogram with two solutions: the line solver can't solve any cell
+        Nonogram.Builder builder = new Nonogram.Builder();
+        builder.setWidth(2);
+        builder.setHeight(2);
+
+        for (int i = 0; i < 2; i++) {
+            builder.setNumberOfClue(i, true, 1);
+            builder.addClue(i, true, 1, Color.BLACK);
+            builder.setNumberOfClue(i, false, 1);
+            builder.addClue(i, false, 1, Color.BLACK);
+        }
+
+        Path file = Files.createTempFile("solver", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable(PassEvent.class);
+                recording.enable(ProbeEvent.class);
+                recording.enable(GuessEvent.class);
+                recording.enable(LineSolveEvent.class).withThreshold(Duration.ZERO);
+                recording.start();
+
+                NonogramSolver solver = new NonogramSolver();
+                assertTrue(solver.solve(builder.build(), SolverListener.EMPTY_LISTENER, false, true).isSolved());
+                assertTrue(solver.solve(builder.build(), SolverListener.EMPTY_LISTENER, true, true).isSolved());
+
+                recording.stop();
+                recording.dump(file);
+            }
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+
+            assertEquals(1, count(events, "Guess"));
+            assertEquals(1, count(events, "Probe"));
+            assertTrue(count(events, "Pass") > 0);
+            assertTrue(count(events, "LineSolve") >= 4);
+
+            RecordedEvent guess = find(events, "Guess");
+            assertEquals("guess", guess.getString("action"));
+            assertEquals(1, guess.getInt("depth"));
+
+            RecordedEvent probe = find(events, "Probe");
+            assertEquals("solved", probe.getString("outcome"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private long count(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(e -> e.getEventType().getName().equals("fr.poulpogaz.nonogramssolver." + name))
+                .count();
+    }
+
+    private RecordedEvent find(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(e -> e.getEventType().getName().equals("fr.poulpogaz.nonogramssolver." + name))
+                .findFirst()
+                .orElseThrow();
+    }
+}
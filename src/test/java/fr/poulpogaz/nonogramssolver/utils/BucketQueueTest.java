@@ -0,0 +1,119 @@
+package fr.poulpogaz.nonogramssolver.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BucketQueueTest {
+
+    @Test
+    void test() {
+        BucketQueue queue = new BucketQueue(100, 100);
+
+        for (int i = 0; i < 100; i++) {
+            queue.insert(i, i);
+        }
+
+        int i = 99;
+        while (!queue.isEmpty()) {
+            assertEquals(i, queue.poll());
+            i--;
+        }
+        assertEquals(-1, queue.poll());
+    }
+
+    @Test
+    void setPriorityTest() {
+        BucketQueue queue = new BucketQueue(100, 10);
+
+        queue.insert(1, 1);
+        queue.insert(2, 2);
+        queue.insert(3, 3);
+        queue.insert(4, 4);
+
+        queue.setPriority(2, 5);
+        queue.setPriority(4, 2);
+        assertEquals(2, queue.poll());
+
+        queue.setPriority(3, 0);
+        assertEquals(4, queue.poll());
+
+        queue.setPriority(3, 5);
+        assertEquals(3, queue.poll());
+
+        queue.insert(5, 5);
+        queue.setPriority(5, 0);
+
+        assertEquals(1, queue.poll());
+        assertEquals(5, queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void insertionOrderTest() {
+        BucketQueue queue = new BucketQueue(10, 3);
+        queue.insert(4, 2);
+        queue.insert(1, 2);
+        queue.insert(7, 2);
+        queue.insert(0, 1);
+
+        queue.setPriority(1, 1);
+        queue.setPriority(1, 2); // moved at the end of the bucket
+
+        assertEquals(4, queue.poll());
+        assertEquals(7, queue.poll());
+        assertEquals(1, queue.poll());
+        assertEquals(0, queue.poll());
+    }
+
+    @Test
+    void clearTest() {
+        BucketQueue queue = new BucketQueue(10, 5);
+        queue.insert(3, 1);
+        queue.insert(7, 5);
+        queue.clear();
+
+        assertTrue(queue.isEmpty());
+        assertFalse(queue.contains(3));
+        assertFalse(queue.contains(7));
+
+        queue.insert(7, 0);
+        assertEquals(7, queue.peek());
+        assertEquals(1, queue.size());
+        assertThrows(IllegalArgumentException.class, () -> queue.insert(2, 6));
+    }
+
+    /**
+     * Polled priorities must be the same as {@link IndexedHeap}
+     */
+    @Test
+    void randomTest() {
+        Random random = new Random(42);
+        BucketQueue queue = new BucketQueue(200, 20);
+        IndexedHeap heap = new IndexedHeap(200);
+
+        for (int i = 0; i < 200; i++) {
+            int priority = random.nextInt(21);
+            queue.insert(i, priority);
+            heap.insert(i, priority);
+        }
+
+        for (int i = 0; i < 1000 && !queue.isEmpty(); i++) {
+            int key = random.nextInt(200);
+
+            if (queue.contains(key)) {
+                int priority = random.nextInt(21);
+                queue.setPriority(key, priority);
+                heap.setPriority(key, priority);
+            }
+            if (random.nextInt(3) == 0) {
+                int polled = queue.poll();
+                assertEquals(heap.getPriority(heap.peek()), heap.getPriority(polled));
+                heap.setPriority(polled, Double.MAX_VALUE);
+                assertEquals(polled, heap.poll());
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package fr.poulpogaz.nonogramssolver.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndexedHeapTest {
+
+    @Test
+    void test() {
+        IndexedHeap heap = new IndexedHeap(100);
+
+        for (int i = 0; i < 100; i++) {
+            heap.insert(i, i);
+        }
+
+        int i = 99;
+        while (!heap.isEmpty()) {
+            assertEquals(i, heap.poll());
+            i--;
+        }
+        assertEquals(-1, heap.poll());
+    }
+
+    @Test
+    void setPriorityTest() {
+        IndexedHeap heap = new IndexedHeap(100);
+
+        heap.insert(1, 1);
+        heap.insert(2, 2);
+        heap.insert(3, 3);
+        heap.insert(4, 4);
+
+        heap.setPriority(2, 5);
+        heap.setPriority(4, 2);
+        assertEquals(2, heap.poll());
+
+        heap.setPriority(3, 0);
+        assertEquals(4, heap.poll());
+
+        heap.setPriority(3, 5);
+        assertEquals(3, heap.poll());
+
+        heap.insert(5, 5);
+        heap.setPriority(5, 0);
+
+        assertEquals(1, heap.poll());
+        assertEquals(5, heap.poll());
+    }
+
+    @Test
+    void clearTest() {
+        IndexedHeap heap = new IndexedHeap(10);
+        heap.insert(3, 1);
+        heap.insert(7, 2);
+        heap.clear();
+
+        assertTrue(heap.isEmpty());
+        assertFalse(heap.contains(3));
+        assertFalse(heap.contains(7));
+
+        heap.insert(7, 1);
+        assertTrue(heap.contains(7));
+        assertEquals(1, heap.size());
+    }
+
+    /**
+     * The heap must give the same order as {@link PriorityQueue}, even with equal priorities
+     */
+    @Test
+    @SuppressWarnings("deprecation")
+    void sameOrderTest() {
+        Random random = new Random(42);
+        IndexedHeap heap = new IndexedHeap(200);
+        PriorityQueue<Integer> queue = new PriorityQueue<>(i -> i, 200);
+
+        for (int i = 0; i < 200; i++) {
+            int priority = random.nextInt(10);
+            heap.insert(i, priority);
+            queue.insert(i, priority);
+        }
+
+        for (int i = 0; i < 500; i++) {
+            int key = random.nextInt(200);
+
+            if (heap.contains(key)) {
+                int priority = random.nextInt(10);
+                heap.setPriority(key, priority);
+                queue.setPriority(key, priority);
+            }
+            if (random.nextInt(4) == 0) {
+                assertEquals((int) queue.poll(), heap.poll());
+            }
+        }
+
+        while (!heap.isEmpty()) {
+            assertEquals((int) queue.poll(), heap.poll());
+        }
+    }
+}
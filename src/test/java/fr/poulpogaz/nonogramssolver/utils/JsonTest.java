@@ -0,0 +1,38 @@
+package fr.poulpogaz.nonogramssolver.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonTest {
+
+    @Test
+    void parseTest() {
+        Object json = Json.parse(" {\"a\": [1, -2.5, true, null], \"b\": {\"c\": \"d\\\"\\u0041\"}, \"e\": []} ");
+
+        Map<?, ?> map = assertInstanceOf(Map.class, json);
+        assertEquals(List.of(1L, -2.5, true), ((List<?>) map.get("a")).subList(0, 3));
+        assertNull(((List<?>) map.get("a")).get(3));
+        assertEquals(Map.of("c", "d\"A"), map.get("b"));
+        assertEquals(List.of(), map.get("e"));
+    }
+
+    @Test
+    void invalidTest() {
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("{\"a\": 1"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("[1, 2] 3"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("{a: 1}"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("\"abc"));
+    }
+
+    @Test
+    void escapeTest() {
+        String str = "a\"b\\c\nd";
+
+        assertEquals("a\\\"b\\\\c\\u000ad", Json.escape(str));
+        assertEquals(str, Json.parse(Json.quote(str)));
+    }
+}